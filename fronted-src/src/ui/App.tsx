@@ -36,6 +36,7 @@ interface PlayerRow {
   x: number
   y: number
   z: number
+  totalPlayTime?: number
   totalPlayTimeFormatted?: string
   experienceLevel?: number
   dimension?: string
@@ -51,9 +52,19 @@ interface PlayerDetail extends PlayerRow {
   canFly?: boolean
   isFlying?: boolean
   sessions?: Array<{ start: number; end?: number; ip?: string }>
-  hotbar?: Array<{ displayName: string; count: number; isEmpty: boolean }>
-  armor?: Array<{ displayName: string; count: number; isEmpty: boolean }>
-  offhand?: { displayName: string; count: number; isEmpty: boolean }
+  inventory?: InventoryItem[]
+  hotbar?: InventoryItem[]
+  armor?: InventoryItem[]
+  offhand?: InventoryItem
+}
+
+// Compact responses carry only the dictionary id; displayName is filled in from /api/items
+interface InventoryItem {
+  slot: number
+  item: number
+  count: number
+  customName?: string
+  displayName?: string
 }
 
 const EFFECT_OPTIONS = [
@@ -91,6 +102,20 @@ const EFFECT_OPTIONS = [
   { value: 'hero_of_the_village', label: 'Hero of the Village' },
 ]
 
+// Same format as the server's totalPlayTimeFormatted, which compact responses leave out
+const formatPlayTime = (p?: { totalPlayTime?: number; totalPlayTimeFormatted?: string } | null) => {
+  if (p?.totalPlayTimeFormatted) return p.totalPlayTimeFormatted
+  if (p?.totalPlayTime == null) return '—'
+  const seconds = Math.floor(p.totalPlayTime / 1000)
+  const minutes = Math.floor(seconds / 60)
+  const hours = Math.floor(minutes / 60)
+  const days = Math.floor(hours / 24)
+  if (days > 0) return `${days}d ${hours % 24}h ${minutes % 60}m`
+  if (hours > 0) return `${hours}h ${minutes % 60}m`
+  if (minutes > 0) return `${minutes}m ${seconds % 60}s`
+  return `${seconds}s`
+}
+
 // API base helper: if opened via file://, fallback to localhost:4444
 const API_BASE = typeof window !== 'undefined' && window.location.protocol === 'file:'
   ? 'http://localhost:4444'
@@ -129,21 +154,74 @@ function encodeForm(data: Record<string, string>): string {
     .join('&')
 }
 
-async function postAction(action: string, params: Record<string, string>): Promise<boolean> {
-  const res = await apiFetch(`/api/action/${action}`, {
-    method: 'POST',
-    headers: { 'Content-Type': 'application/x-www-form-urlencoded' },
-    body: encodeForm(params),
-  })
-  if (!res.ok) return false
+// Tracked operation as returned by /api/action and /api/action/status
+interface ActionOp {
+  operationId?: number
+  status: 'pending' | 'done' | 'failed'
+  success?: boolean
+  error?: string
+}
+
+// Operations still queued on the server thread, resolved by the stream's `action` events
+const pendingOps = new Map<number, (op: ActionOp) => void>()
+
+async function postAction(action: string, params: Record<string, string>): Promise<ActionOp> {
   try {
-    const j = await res.json()
-    return !!j?.success
+    const res = await apiFetch(`/api/action/${action}`, {
+      method: 'POST',
+      headers: { 'Content-Type': 'application/x-www-form-urlencoded' },
+      body: encodeForm(params),
+    })
+    // 200 done, 202 pending, 500 failed: all carry the operation
+    return await res.json()
   } catch {
-    return true
+    return { status: 'failed', success: false }
   }
 }
 
+// Item dictionary from /api/items; ids only grow while the server runs, so fetch just the new tail
+const itemNames: string[] = []
+
+async function loadItemNames(): Promise<void> {
+  const res = await apiFetch(`/api/items?since=${itemNames.length}`)
+  if (!res.ok) return
+  const data: { size: number; items: Array<{ id: number; displayName: string }> } = await res.json()
+  // A restarted server numbers items afresh
+  if (data.size < itemNames.length) { itemNames.length = 0; return loadItemNames() }
+  for (const entry of data.items) itemNames[entry.id] = entry.displayName
+}
+
+async function resolveItems(detail: PlayerDetail): Promise<PlayerDetail> {
+  const slots = [...(detail.inventory || []), ...(detail.hotbar || []), ...(detail.armor || []), ...(detail.offhand ? [detail.offhand] : [])]
+  if (slots.some(s => s.customName == null && itemNames[s.item] == null)) await loadItemNames()
+  for (const s of slots) s.displayName = s.customName ?? itemNames[s.item] ?? `#${s.item}`
+  return detail
+}
+
+// Resolve a 202 with its real outcome: the stream event, or the status endpoint if the stream is down
+function settle(op: ActionOp): Promise<ActionOp> {
+  const id = op.operationId
+  if (op.status !== 'pending' || id == null) return Promise.resolve(op)
+  return new Promise(resolve => {
+    let tries = 0
+    const finish = (result: ActionOp) => {
+      if (!pendingOps.delete(id)) return
+      clearInterval(timer)
+      resolve(result)
+    }
+    pendingOps.set(id, finish)
+    const timer = setInterval(async () => {
+      if (++tries > 30) { finish({ ...op, status: 'failed', success: false, error: 'timeout' }); return }
+      try {
+        const res = await apiFetch(`/api/action/status/${id}`)
+        if (!res.ok) return
+        const j: ActionOp = await res.json()
+        if (j.status !== 'pending') finish(j)
+      } catch { /* retry on the next interval */ }
+    }, 2000)
+  })
+}
+
 export default function App() {
   // Navigation state
   const [currentPage, setCurrentPage] = useState<'players' | 'settings'>('players')
@@ -181,9 +259,9 @@ export default function App() {
   // Fetch selected player details
   const loadDetail = async (uuid: string) => {
     try {
-      const res = await apiFetch(`/api/player/${uuid}`)
+      const res = await apiFetch(`/api/player/${uuid}`, { headers: { Accept: 'application/vnd.synm.compact+json' } })
       if (!res.ok) throw new Error(String(res.status))
-      const data = await res.json()
+      const data = await resolveItems(await res.json())
       setDetail(data)
       setNote(data.note || '')
       // Prefill teleport with current coords
@@ -194,11 +272,65 @@ export default function App() {
     }
   }
 
-  // Interval refresh
+  // Live updates: subscribe to /api/stream, fall back to polling while it is unavailable
   useEffect(() => {
     loadPlayers()
-    const id = setInterval(loadPlayers, 5000)
-    return () => clearInterval(id)
+    if (DEMO || typeof EventSource === 'undefined') {
+      const id = setInterval(loadPlayers, 5000)
+      return () => clearInterval(id)
+    }
+    let pollId: ReturnType<typeof setInterval> | null = null
+    const upsert = (list: PlayerRow[], row: PlayerRow) => {
+      const i = list.findIndex(p => p.uuid === row.uuid)
+      if (i < 0) return [...list, row]
+      const next = list.slice()
+      next[i] = { ...next[i], ...row }
+      return next
+    }
+    const es = new EventSource(`${API_BASE}/api/stream`, { withCredentials: API_BASE !== '' })
+    es.addEventListener('snapshot', (ev) => {
+      const data = JSON.parse((ev as MessageEvent).data)
+      setOnline(data.online || [])
+      setOffline(data.offline || [])
+    })
+    es.addEventListener('action', (ev) => {
+      const op: ActionOp = JSON.parse((ev as MessageEvent).data)
+      if (op.operationId != null) pendingOps.get(op.operationId)?.(op)
+    })
+    es.addEventListener('delta', (ev) => {
+      const delta = JSON.parse((ev as MessageEvent).data)
+      // Position, health, game mode etc. of the open player arrive here, not by re-fetching
+      setDetail(prev => {
+        if (!prev) return prev
+        const change = (delta.changed || []).find((c: PlayerRow) => c.uuid === prev.uuid)
+          ?? (delta.joined || []).find((c: PlayerRow) => c.uuid === prev.uuid)
+          ?? (delta.left || []).find((c: PlayerRow) => c.uuid === prev.uuid && c.username)
+        return change ? { ...prev, ...change } : prev
+      })
+      const leftIds = new Set<string>((delta.left || []).map((p: PlayerRow) => p.uuid))
+      const joinedIds = new Set<string>((delta.joined || []).map((p: PlayerRow) => p.uuid))
+      setOnline(prev => {
+        let next = prev.filter(p => !leftIds.has(p.uuid))
+        for (const row of delta.joined || []) next = upsert(next, row)
+        for (const change of delta.changed || []) next = upsert(next, change)
+        return next
+      })
+      setOffline(prev => {
+        let next = prev.filter(p => !joinedIds.has(p.uuid))
+        for (const row of delta.left || []) if (row.username) next = upsert(next, row)
+        return next
+      })
+    })
+    es.onopen = () => {
+      if (pollId) { clearInterval(pollId); pollId = null }
+    }
+    es.onerror = () => {
+      if (!pollId) pollId = setInterval(loadPlayers, 5000)
+    }
+    return () => {
+      es.close()
+      if (pollId) clearInterval(pollId)
+    }
   }, [])
 
   useEffect(() => {
@@ -206,13 +338,30 @@ export default function App() {
   }, [selected])
 
   // UI handlers
+  // Apply the state the action set; a stream delta carrying the same flags may arrive before or after
+  const applyResult = (uuid: string, action: string, extra: Record<string, string>) => {
+    setDetail(prev => {
+      if (!prev || prev.uuid !== uuid) return prev
+      switch (action) {
+        case 'freeze': return { ...prev, frozen: extra.freeze === 'true' }
+        case 'godmode': return { ...prev, godMode: extra.enabled === 'true' }
+        case 'vanish': return { ...prev, vanished: extra.enabled === 'true' }
+        case 'fly': return extra.enabled === 'true' ? { ...prev, canFly: true } : { ...prev, canFly: false, isFlying: false }
+        case 'setnote': return { ...prev, note: extra.note }
+        default: return prev
+      }
+    })
+  }
+
   const act = async (action: string, extra: Record<string, string> = {}) => {
     if (!selected) return
-    const ok = await postAction(action, { uuid: selected, ...extra })
-    if (ok) {
+    const uuid = selected
+    const op = await settle(await postAction(action, { uuid, ...extra }))
+    if (op.success) {
       notifications.show({ color: 'green', message: `${action} OK` })
-      loadPlayers()
-      if (selected) loadDetail(selected)
+      applyResult(uuid, action, extra)
+    } else if (op.error === 'timeout') {
+      notifications.show({ color: 'yellow', message: `${action}: no result from the server yet` })
     } else {
       notifications.show({ color: 'red', message: `${action} failed` })
     }
@@ -246,16 +395,20 @@ export default function App() {
 
   const clearEffects = async () => act('cleareffects')
   const sendBroadcast = async () => {
-    await postAction('broadcast', { message: broadcast })
+    const op = await settle(await postAction('broadcast', { ...(selected ? { uuid: selected } : {}), message: broadcast }))
+    if (!op.success) {
+      notifications.show({ color: 'red', message: 'Broadcast failed' })
+      return
+    }
     notifications.show({ color: 'green', message: 'Broadcast sent' })
     setBroadcast('')
   }
   const doBan = async () => act('ban', { reason: banReason })
   const doUnban = async () => act('unban')
   const toggleFreeze = async () => act('freeze', { freeze: String(!(detail?.frozen ?? false)) })
-  const toggleGod = async () => act('godmode')
-  const toggleFly = async () => act('fly')
-  const toggleVanish = async () => act('vanish')
+  const toggleGod = async () => act('godmode', { enabled: String(!(detail?.godMode ?? false)) })
+  const toggleFly = async () => act('fly', { enabled: String(!(detail?.canFly ?? false)) })
+  const toggleVanish = async () => act('vanish', { enabled: String(!(detail?.vanished ?? false)) })
 
   const selectedPlayerName = useMemo(() => {
     const p = [...online, ...offline].find(p => p.uuid === selected)
@@ -336,7 +489,7 @@ export default function App() {
                           </Group>
                           <Badge variant="light">last seen</Badge>
                         </Group>
-                        <Text size="xs" c="dimmed" mt={6}>Playtime: {p.totalPlayTimeFormatted || '—'}</Text>
+                        <Text size="xs" c="dimmed" mt={6}>Playtime: {formatPlayTime(p)}</Text>
                       </Card>
                     ))}
                     {offline.length === 0 && <Text c="dimmed" ta="center" mt="sm">No offline players</Text>}
@@ -480,7 +633,7 @@ export default function App() {
                       </Group>
                       <Text size="sm">🍗 {detail?.foodLevel ?? 0}</Text>
                       <Text size="sm">Level {detail?.experienceLevel ?? 0}</Text>
-                      <Text size="sm">Playtime: {detail?.totalPlayTimeFormatted || '—'}</Text>
+                      <Text size="sm">Playtime: {formatPlayTime(detail)}</Text>
                     </Group>
                     <Divider my="sm" />
                     <Text size="sm">Pos: X {detail?.x?.toFixed?.(1)} Y {detail?.y?.toFixed?.(1)} Z {detail?.z?.toFixed?.(1)}</Text>
@@ -497,8 +650,8 @@ export default function App() {
                       <Text size="sm"><b>Username:</b> {selectedPlayerName}</Text>
                       <Text size="sm"><b>UUID:</b> {selected}</Text>
                       <Text size="sm"><b>First joined:</b> {detail?.firstJoined ? new Date(detail.firstJoined).toLocaleString() : '—'}</Text>
-                      <Text size="sm"><b>Last seen:</b> {detail?.lastSeen ? new Date(detail.lastSeen).toLocaleString() : '—'}</Text>
-                      <Text size="sm"><b>Total playtime:</b> {detail?.totalPlayTimeFormatted || '—'}</Text>
+                      <Text size="sm"><b>Last seen:</b> {detail?.online ? 'Online now' : detail?.lastSeen ? new Date(detail.lastSeen).toLocaleString() : '—'}</Text>
+                      <Text size="sm"><b>Total playtime:</b> {formatPlayTime(detail)}</Text>
                       <Text size="sm"><b>Dimension:</b> {detail?.dimension || '—'}</Text>
                       <Text size="sm"><b>Game mode:</b> {detail?.gameMode || '—'}</Text>
                     </Stack>
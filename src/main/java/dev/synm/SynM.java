@@ -8,54 +8,65 @@ import net.minecraft.server.MinecraftServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import dev.synm.config.SynMConfig;
 import dev.synm.web.WebServer;
 import dev.synm.player.PlayerManager;
+import dev.synm.database.BufferedPlayerLogger;
+import dev.synm.database.H2EventStore;
 import dev.synm.database.PlayerLogger;
+import dev.synm.metrics.Metrics;
+import dev.synm.metrics.ServerPerfSampler;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
-// Database imports temporarily disabled
-// import dev.synm.database.DatabaseManager;
-// import dev.synm.database.PlayerLogger;
 
 public class SynM implements ModInitializer {
 	public static final String MOD_ID = "synm";
 	public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
 	
+	private static SynMConfig config;
 	private static WebServer webServer;
 	private static PlayerManager playerManager;
-	// Database components temporarily disabled
-	// private static DatabaseManager databaseManager;
-	// private static PlayerLogger playerLogger;
+	// Player event log; null when no sinks are configured
+	private static BufferedPlayerLogger playerLogger;
+	// Whole-server TPS/MSPT, world and JVM stats for /api/server/perf
+	private static ServerPerfSampler perfSampler;
 
 	@Override
 	public void onInitialize() {
 		LOGGER.info("Initializing SynM mod...");
 		
+		config = SynMConfig.load();
+		
 		// Initialize player manager first
-		playerManager = new PlayerManager();
+		playerManager = new PlayerManager(config);
 		
-		// Database system temporarily disabled to fix crashes
-		// TODO: Re-enable database logging later
-		/*
-		// Initialize database system with error handling
-		try {
-			databaseManager = new DatabaseManager();
-			databaseManager.initialize();
-			
-			// Initialize player logger
-			playerLogger = new PlayerLogger(databaseManager);
-			LOGGER.info("Database system initialized successfully");
-		} catch (Exception e) {
-			LOGGER.error("Failed to initialize database system, continuing without logging", e);
-			// Continue without database logging if it fails
+		// Event logging only queues on the server thread; sinks are written from a background thread
+		playerLogger = BufferedPlayerLogger.create(config);
+
+		// Read when /metrics is scraped
+		Metrics.gauge("synm_freeze_pass_seconds", "Duration of the last frozen-player enforcement pass",
+			() -> playerManager.getFreezeTickNanos() / 1_000_000_000.0);
+		perfSampler = new ServerPerfSampler(config.perfSampleTicks, config.perfHistoryMinutes);
+		Metrics.gauge("minecraft_tps", "Server ticks per second over the last minute",
+			() -> perfSampler.latest() != null ? perfSampler.latest().tps1m() : Double.NaN);
+		Metrics.gauge("minecraft_mspt_p99_seconds", "99th percentile server tick time over the last minute",
+			() -> perfSampler.latest() != null ? perfSampler.latest().msptP99() / 1000.0 : Double.NaN);
+		if (playerLogger != null) {
+			Metrics.counterFunction("synm_event_log_dropped_total", "Player events dropped because the log buffer was full",
+				playerLogger::getDroppedCount);
 		}
-		*/
 		
 		// Register server lifecycle events
+		ServerLifecycleEvents.SERVER_STARTING.register(server -> {
+			playerManager.startup();
+			perfSampler.reset();
+			if (playerLogger != null) playerLogger.start();
+		});
+		
 		ServerLifecycleEvents.SERVER_STARTED.register(server -> {
 			// Check if this is a valid server environment for the web portal
 			if (shouldStartWebServer(server)) {
 				LOGGER.info("Server started, launching web portal on port 4444...");
-				webServer = new WebServer(4444, playerManager, server);
+				webServer = new WebServer(4444, playerManager, server, config);
 				webServer.start();
 			} else {
 				LOGGER.info("SynM detected client-only environment, web portal disabled");
@@ -66,8 +77,16 @@ public class SynM implements ModInitializer {
 			LOGGER.info("Server stopping, shutting down web portal...");
 			if (webServer != null) {
 				webServer.stop();
+				webServer = null;
 			}
-			// Database system disabled
+			// Record the leave of everyone still online, then flush and close the stores;
+			// the disconnects that follow have nothing left to write
+			playerManager.shutdown();
+		});
+
+		// After the final disconnects, so their leave events are written before the log closes
+		ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+			if (playerLogger != null) playerLogger.stop();
 		});
 		
 		// Register player connection events
@@ -76,19 +95,23 @@ public class SynM implements ModInitializer {
 				if (playerManager != null) {
 					playerManager.onPlayerJoin(handler.getPlayer());
 				}
-				// Database logging temporarily disabled
-				// if (playerLogger != null) {
-				//     playerLogger.logPlayerJoin(handler.getPlayer());
-				// }
+				if (playerLogger != null) {
+					playerLogger.logPlayerJoin(handler.getPlayer());
+				}
 			} catch (Exception e) {
 				LOGGER.error("Error handling player join", e);
 			}
 		});
 
+		ServerTickEvents.START_SERVER_TICK.register(server -> perfSampler.tickStart());
+
 		// Server tick: enforce freeze and periodic states
 		ServerTickEvents.END_SERVER_TICK.register(server -> {
+			perfSampler.tickEnd(server);
 			if (playerManager != null) {
+				long started = System.nanoTime();
 				try { playerManager.onServerTick(server); } catch (Exception e) { LOGGER.error("Tick handler error", e); }
+				Metrics.TICK.record(System.nanoTime() - started);
 			}
 		});
 		
@@ -97,10 +120,9 @@ public class SynM implements ModInitializer {
 				if (playerManager != null) {
 					playerManager.onPlayerLeave(handler.getPlayer());
 				}
-				// Database logging temporarily disabled
-				// if (playerLogger != null) {
-				//     playerLogger.logPlayerLeave(handler.getPlayer(), "Disconnected");
-				// }
+				if (playerLogger != null) {
+					playerLogger.logPlayerLeave(handler.getPlayer(), "Disconnected");
+				}
 			} catch (Exception e) {
 				LOGGER.error("Error handling player disconnect", e);
 			}
@@ -125,6 +147,10 @@ public class SynM implements ModInitializer {
 			}
 	}
 	
+	public static SynMConfig getConfig() {
+		return config;
+	}
+	
 	public static PlayerManager getPlayerManager() {
 		return playerManager;
 				}
@@ -133,17 +159,17 @@ public class SynM implements ModInitializer {
 					return webServer;
 				}
 	
-	// Database getters temporarily disabled
-	/*
-	public static DatabaseManager getDatabaseManager() {
-		return databaseManager;
+	public static PlayerLogger getPlayerLogger() {
+		return playerLogger;
 	}
-	
-	*/
 
-	// Temporary stub to satisfy callers while database is disabled
-	public static PlayerLogger getPlayerLogger() {
-		return null; // no-op logger for now
+	public static ServerPerfSampler getPerfSampler() {
+		return perfSampler;
+	}
+
+	// Queryable event history, or null when the h2 sink is disabled
+	public static H2EventStore getEventStore() {
+		return playerLogger != null ? playerLogger.getSink(H2EventStore.class) : null;
 	}
 }
  
\ No newline at end of file
@@ -0,0 +1,91 @@
+package dev.synm.config;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Runtime settings read from synm_config.json in the server directory.
+ * Missing keys keep their defaults; a default file is written on first start.
+ */
+public class SynMConfig {
+    private static final Path CONFIG_FILE = Paths.get("synm_config.json");
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    // Ticks between roster snapshots published to the web portal (20 ticks = 1 second)
+    public int snapshotIntervalTicks = 20;
+    // Debounce for the background writer of synm_data.json (player notes): the first change schedules one
+    // write this many ms later, off the server thread, and changes made meanwhile are folded into it.
+    // Sessions are not affected; they go to the session journal as they happen.
+    public long saveDebounceMillis = 2000;
+    // Session journal records appended before the history is compacted into synm_sessions.dat
+    public int sessionJournalCompactRecords = 10000;
+    // Offline players whose full record (with inventory) stays in memory after being loaded
+    public int offlineRosterCacheSize = 500;
+    // How long an action request waits for the server thread before answering 202 with an operation id
+    public long actionTimeoutMillis = 2000;
+    // Web portal request threads: "virtual" (one virtual thread per request) or "fixed" (httpThreads platform threads)
+    public String httpExecutor = "virtual";
+    public int httpThreads = 10;
+    // Requests handled at once; beyond this the portal answers 503 with Retry-After
+    public int httpMaxInFlight = 64;
+    // Require the API key for /metrics; turn off to let a local Prometheus scrape it (timings only, no player data)
+    public boolean metricsRequireAuth = true;
+    // Ticks between server performance samples for /api/server/perf, and how much sample history to keep
+    public int perfSampleTicks = 100;
+    public int perfHistoryMinutes = 60;
+    // Player event log: where events go ("file" = synm_events.log, "h2" = synm_history database); empty disables logging
+    public java.util.List<String> eventSinks = java.util.List.of("file", "h2");
+    // Pooled connections for /api/history queries against the h2 event store
+    public int historyReadConnections = 4;
+    // Events buffered between the server thread and the log writer (rounded up to a power of two)
+    public int eventBufferSize = 8192;
+    public int eventBatchSize = 256;
+    // How long the log writer waits for a batch to fill before writing what it has
+    public long eventFlushMillis = 200;
+    // When the buffer is full: "drop" the event, or "block" the server thread until there is room
+    public String eventOverflowPolicy = "drop";
+
+    public static SynMConfig load() {
+        SynMConfig config = null;
+        try {
+            if (Files.exists(CONFIG_FILE)) {
+                config = GSON.fromJson(Files.readString(CONFIG_FILE), SynMConfig.class);
+            }
+        } catch (Exception e) {
+            dev.synm.SynM.LOGGER.error("Failed to read {}, using defaults", CONFIG_FILE, e);
+        }
+        if (config == null) {
+            config = new SynMConfig();
+            try {
+                Files.writeString(CONFIG_FILE, GSON.toJson(config));
+            } catch (Exception e) {
+                dev.synm.SynM.LOGGER.warn("Failed to write default {}", CONFIG_FILE, e);
+            }
+        }
+        config.validate();
+        return config;
+    }
+
+    private void validate() {
+        if (snapshotIntervalTicks < 1) snapshotIntervalTicks = 1;
+        if (saveDebounceMillis < 0) saveDebounceMillis = 0;
+        if (sessionJournalCompactRecords < 100) sessionJournalCompactRecords = 100;
+        if (offlineRosterCacheSize < 1) offlineRosterCacheSize = 1;
+        if (actionTimeoutMillis < 0) actionTimeoutMillis = 0;
+        if (!"fixed".equals(httpExecutor)) httpExecutor = "virtual";
+        if (httpThreads < 1) httpThreads = 1;
+        if (httpMaxInFlight < 1) httpMaxInFlight = 1;
+        if (perfSampleTicks < 20) perfSampleTicks = 20;
+        if (perfHistoryMinutes < 1) perfHistoryMinutes = 1;
+        if (eventSinks == null) eventSinks = java.util.List.of();
+        if (eventBufferSize < 16) eventBufferSize = 16;
+        if (eventBatchSize < 1) eventBatchSize = 1;
+        if (historyReadConnections < 1) historyReadConnections = 1;
+        if (eventFlushMillis < 1) eventFlushMillis = 1;
+        if (!"block".equals(eventOverflowPolicy)) eventOverflowPolicy = "drop";
+    }
+}
@@ -0,0 +1,403 @@
+package dev.synm.database;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only audit trail of admin actions, one JSON object per line in
+ * synm_audit.log. Every entry carries the SHA-256 of the entry before it
+ * ("prev") and of itself ("hash"), so editing, reordering or deleting a line
+ * breaks the chain from that point on; {@link #verify} walks the file and
+ * reports the first entry that no longer fits.
+ *
+ * {@link #append} only queues the entry. A single writer thread drains
+ * whatever has queued up, chains and writes the whole group, then forces it to
+ * disk once, so a burst of actions costs one fsync rather than one each.
+ * An in-memory index of (time, offset) per target player is rebuilt from the
+ * file on open and extended after each durable write; queries binary-search it
+ * and read the matching lines straight from the file.
+ */
+public class AuditLog {
+    public static final int MAX_LIMIT = 1000;
+    private static final String GENESIS = "0".repeat(64);
+    private static final byte[] HASH_KEY = ",\"hash\":\"".getBytes(StandardCharsets.UTF_8);
+
+    // Who asked for an action: key fingerprint or "anonymous", remote address, user agent
+    public record Actor(String id, String ip, String client) {}
+
+    private record Pending(long time, Actor actor, String action, UUID target, Map<String, String> params, String result) {}
+
+    // Queued by close() to wake the writer; interrupting it would close the channel mid-write
+    private static final Pending STOP = new Pending(0, null, null, null, Map.of(), null);
+
+    public record Verification(long entries, boolean valid, long firstBrokenSeq, String lastHash) {}
+
+    private final Path file;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    // Indexes are read by request threads and extended by the writer
+    private final Map<UUID, Postings> byTarget = new HashMap<>();
+    private final Postings all = new Postings();
+    private FileChannel channel;
+    private long seq;
+    private String lastHash = GENESIS;
+    private volatile Thread writer;
+    private volatile boolean running;
+
+    public AuditLog(Path file) {
+        this.file = file;
+    }
+
+    // Rebuild the index from the file, cut off any torn last line and start the writer
+    public synchronized void open() throws IOException {
+        if (running) return;
+        synchronized (all) {
+            byTarget.clear();
+            all.clear();
+        }
+        Scan scan = scan(true);
+        if (!scan.verification.valid()) {
+            dev.synm.SynM.LOGGER.error("Audit log {} fails verification at entry {}; it was modified outside SynM",
+                file, scan.verification.firstBrokenSeq());
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        if (channel.size() > scan.validLength) {
+            dev.synm.SynM.LOGGER.warn("Truncating {} bytes of incomplete audit entry from {}", channel.size() - scan.validLength, file);
+            channel.truncate(scan.validLength);
+            channel.force(true);
+        }
+        channel.position(scan.validLength);
+        seq = scan.lastSeq;
+        lastHash = scan.verification.lastHash();
+        running = true;
+        Thread t = new Thread(this::writeLoop, "SynM-Audit");
+        t.setDaemon(true);
+        writer = t;
+        t.start();
+    }
+
+    // Write out everything queued so far, then close the file
+    public void close() {
+        Thread t;
+        synchronized (this) {
+            if (!running) return;
+            running = false;
+            t = writer;
+            writer = null;
+        }
+        queue.add(STOP);
+        try {
+            t.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            dev.synm.SynM.LOGGER.error("Failed to close audit log", e);
+        }
+        channel = null;
+    }
+
+    /**
+     * Queue an entry; never blocks and never does I/O on the calling thread.
+     * Entries appended while the log is closed are dropped with a warning.
+     */
+    public void append(Actor actor, String action, UUID target, Map<String, String> params, String result) {
+        if (!running) {
+            dev.synm.SynM.LOGGER.warn("Audit log closed, not recording {} on {}", action, target);
+            return;
+        }
+        queue.add(new Pending(System.currentTimeMillis(), actor, action, target,
+            params != null ? new TreeMap<>(params) : Map.of(), result));
+    }
+
+    private void writeLoop() {
+        List<Pending> group = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                group.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(group);
+            group.removeIf(p -> p == STOP);
+            if (group.isEmpty()) continue;
+            try {
+                commit(group);
+            } catch (IOException e) {
+                dev.synm.SynM.LOGGER.error("Failed to write {} audit entries", group.size(), e);
+            }
+            group.clear();
+        }
+    }
+
+    // Chain, write and fsync one group, then make it visible to queries
+    private void commit(List<Pending> group) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(group.size() * 256);
+        long base = channel.position();
+        long[] times = new long[group.size()];
+        long[] offsets = new long[group.size()];
+        int[] lengths = new int[group.size()];
+        long nextSeq = seq;
+        String hash = lastHash;
+        for (int i = 0; i < group.size(); i++) {
+            Pending p = group.get(i);
+            String body = body(++nextSeq, p, hash);
+            hash = sha256(body.getBytes(StandardCharsets.UTF_8));
+            byte[] line = (body.substring(0, body.length() - 1) + ",\"hash\":\"" + hash + "\"}\n").getBytes(StandardCharsets.UTF_8);
+            times[i] = p.time();
+            offsets[i] = base + out.size();
+            lengths[i] = line.length - 1;
+            out.writeBytes(line);
+        }
+        ByteBuffer buf = ByteBuffer.wrap(out.toByteArray());
+        try {
+            while (buf.hasRemaining()) channel.write(buf);
+            channel.force(false);
+        } catch (IOException e) {
+            // Don't leave half a group for the next one to chain onto
+            channel.truncate(base);
+            channel.position(base);
+            throw e;
+        }
+        // Only advance the chain once the group is on disk
+        seq = nextSeq;
+        lastHash = hash;
+        synchronized (all) {
+            for (int i = 0; i < group.size(); i++) {
+                index(group.get(i).target(), times[i], offsets[i], lengths[i]);
+            }
+        }
+    }
+
+    // Canonical entry without its hash: fixed field order, params sorted by key
+    private static String body(long seq, Pending p, String prev) throws IOException {
+        StringWriter s = new StringWriter(256);
+        JsonWriter w = new JsonWriter(s);
+        w.beginObject();
+        w.name("seq").value(seq);
+        w.name("time").value(p.time());
+        w.name("actor").value(p.actor().id());
+        w.name("ip").value(p.actor().ip());
+        w.name("client").value(p.actor().client());
+        w.name("action").value(p.action());
+        w.name("target").value(p.target() != null ? p.target().toString() : null);
+        w.name("params").beginObject();
+        for (Map.Entry<String, String> e : p.params().entrySet()) w.name(e.getKey()).value(e.getValue());
+        w.endObject();
+        w.name("result").value(p.result());
+        w.name("prev").value(prev);
+        w.endObject();
+        w.flush();
+        return s.toString();
+    }
+
+    private void index(UUID target, long time, long offset, int length) {
+        all.add(time, offset, length);
+        if (target != null) byTarget.computeIfAbsent(target, k -> new Postings()).add(time, offset, length);
+    }
+
+    /**
+     * Raw JSON lines for entries in [from, to), newest first, optionally for
+     * one target player. Callable from any thread while the log is open.
+     */
+    public List<String> query(UUID target, long from, long to, int limit) throws IOException {
+        limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        long[] offsets;
+        int[] lengths;
+        int n = 0;
+        synchronized (all) {
+            Postings p = target != null ? byTarget.get(target) : all;
+            if (p == null) return List.of();
+            offsets = new long[limit];
+            lengths = new int[limit];
+            for (int i = p.lowerBound(to) - 1; i >= 0 && n < limit && p.times[i] >= from; i--, n++) {
+                offsets[n] = p.offsets[i];
+                lengths[n] = p.lengths[i];
+            }
+        }
+        List<String> lines = new ArrayList<>(n);
+        try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < n; i++) {
+                ByteBuffer buf = ByteBuffer.allocate(lengths[i]);
+                while (buf.hasRemaining()) {
+                    if (reader.read(buf, offsets[i] + buf.position()) < 0) throw new IOException("Audit log shorter than its index");
+                }
+                lines.add(new String(buf.array(), StandardCharsets.UTF_8));
+            }
+        }
+        return lines;
+    }
+
+    // Re-read the whole file and check every link of the chain
+    public Verification verify() throws IOException {
+        return scan(false).verification;
+    }
+
+    private record Scan(Verification verification, long validLength, long lastSeq) {}
+
+    private Scan scan(boolean rebuildIndex) throws IOException {
+        if (!Files.exists(file)) return new Scan(new Verification(0, true, -1, GENESIS), 0, 0);
+        long entries = 0, offset = 0, validLength = 0, lastSeq = 0, broken = -1;
+        String prev = GENESIS;
+        ByteArrayOutputStream line = new ByteArrayOutputStream(512);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 65536)) {
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                byte[] bytes = line.toByteArray();
+                line.reset();
+                long lineOffset = offset;
+                offset += bytes.length + 1;
+                validLength = offset;
+                if (bytes.length == 0) continue;
+                entries++;
+                JsonObject entry;
+                try {
+                    entry = JsonParser.parseString(new String(bytes, StandardCharsets.UTF_8)).getAsJsonObject();
+                } catch (RuntimeException e) {
+                    if (broken < 0) broken = lastSeq + 1;
+                    continue;
+                }
+                // Tampered fields of the wrong type read as missing and break the chain here
+                long entrySeq = number(entry, "seq");
+                long time = number(entry, "time");
+                String hash = string(entry, "hash");
+                if (hash == null) hash = "";
+                if (broken < 0 && (entrySeq != lastSeq + 1 || time < 0 || !prev.equals(string(entry, "prev"))
+                        || !hash.equals(hashOf(bytes)))) {
+                    broken = entrySeq > 0 ? entrySeq : lastSeq + 1;
+                }
+                // Keep walking from this entry so one bad line doesn't hide the rest
+                lastSeq = entrySeq > 0 ? entrySeq : lastSeq + 1;
+                prev = hash;
+                if (rebuildIndex && time >= 0) {
+                    String target = string(entry, "target");
+                    UUID uuid = null;
+                    try {
+                        if (target != null) uuid = UUID.fromString(target);
+                    } catch (IllegalArgumentException ignored) { }
+                    synchronized (all) {
+                        index(uuid, time, lineOffset, bytes.length);
+                    }
+                }
+            }
+        }
+        // Bytes after the last newline are a write cut short by a crash, not an entry
+        return new Scan(new Verification(entries, broken < 0, broken, prev), validLength, lastSeq);
+    }
+
+    // Null unless the member is a JSON primitive
+    private static String string(JsonObject o, String name) {
+        JsonElement e = o.get(name);
+        return e != null && e.isJsonPrimitive() ? e.getAsString() : null;
+    }
+
+    // -1 unless the member is a whole, non-negative JSON number
+    private static long number(JsonObject o, String name) {
+        JsonElement e = o.get(name);
+        if (e == null || !e.isJsonPrimitive() || !e.getAsJsonPrimitive().isNumber()) return -1;
+        try {
+            return Math.max(-1, new java.math.BigDecimal(e.getAsString()).longValueExact());
+        } catch (ArithmeticException | NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    // Hash of a stored line: everything before its hash field, closed again
+    private static String hashOf(byte[] line) {
+        int at = lastIndexOf(line, HASH_KEY);
+        if (at < 0) return null;
+        byte[] body = Arrays.copyOf(line, at + 1);
+        body[at] = '}';
+        return sha256(body);
+    }
+
+    private static int lastIndexOf(byte[] data, byte[] key) {
+        outer:
+        for (int i = data.length - key.length; i >= 0; i--) {
+            for (int j = 0; j < key.length; j++) {
+                if (data[i + j] != key[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder sb = new StringBuilder(64);
+            for (byte b : digest) sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Append-ordered (time, offset, length) triples; times are non-decreasing
+    private static final class Postings {
+        long[] times = new long[16];
+        long[] offsets = new long[16];
+        int[] lengths = new int[16];
+        int size;
+
+        void add(long time, long offset, int length) {
+            if (size == times.length) {
+                int capacity = size * 2;
+                times = Arrays.copyOf(times, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            // A clock step backwards must not unsort the index
+            times[size] = size > 0 ? Math.max(time, times[size - 1]) : time;
+            offsets[size] = offset;
+            lengths[size] = length;
+            size++;
+        }
+
+        // First index whose time is >= the given time
+        int lowerBound(long time) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (times[mid] < time) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
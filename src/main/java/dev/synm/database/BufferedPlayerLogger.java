@@ -0,0 +1,190 @@
+package dev.synm.database;
+
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import dev.synm.config.SynMConfig;
+
+/**
+ * Player logger that never does I/O on the calling thread. Events are built
+ * on the server thread and pushed into a lock-free ring buffer; a single
+ * consumer thread drains it in batches and hands each batch to every sink.
+ *
+ * When the buffer is full the overflow policy decides: "drop" discards the
+ * event and counts it (reported by the consumer), "block" makes the caller
+ * wait for space. Blocking stalls the server tick, so it is only for setups
+ * where losing an audit record is worse.
+ */
+public class BufferedPlayerLogger implements PlayerLogger {
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    private final EventRingBuffer<PlayerEvent> buffer;
+    private final List<EventSink> sinks;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final long flushNanos;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile Thread consumer;
+    private volatile boolean running;
+
+    public BufferedPlayerLogger(int capacity, int batchSize, long flushMillis, OverflowPolicy overflowPolicy,
+                                List<EventSink> sinks) {
+        this.buffer = new EventRingBuffer<>(capacity);
+        this.batchSize = Math.min(batchSize, buffer.capacity());
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.overflowPolicy = overflowPolicy;
+        this.sinks = List.copyOf(sinks);
+    }
+
+    // Logger configured from synm_config.json, or null if no sinks are enabled
+    public static BufferedPlayerLogger create(SynMConfig config) {
+        List<EventSink> sinks = new ArrayList<>();
+        for (String name : config.eventSinks) {
+            switch (name) {
+                case "file" -> sinks.add(new JsonLinesEventSink(Paths.get("synm_events.log")));
+                case "h2" -> sinks.add(new H2EventStore("./synm_history", config.historyReadConnections));
+                default -> dev.synm.SynM.LOGGER.warn("Unknown event sink '{}' in config, ignoring", name);
+            }
+        }
+        if (sinks.isEmpty()) return null;
+        OverflowPolicy policy = "block".equals(config.eventOverflowPolicy) ? OverflowPolicy.BLOCK : OverflowPolicy.DROP;
+        return new BufferedPlayerLogger(config.eventBufferSize, config.eventBatchSize, config.eventFlushMillis, policy, sinks);
+    }
+
+    // Open the sinks and start the consumer; called once per server start
+    public synchronized void start() {
+        if (running) return;
+        for (EventSink sink : sinks) {
+            try {
+                sink.open();
+            } catch (IOException e) {
+                dev.synm.SynM.LOGGER.error("Failed to open event sink {}", sink.getClass().getSimpleName(), e);
+            }
+        }
+        running = true;
+        Thread t = new Thread(this::drainLoop, "SynM-EventLog");
+        t.setDaemon(true);
+        consumer = t;
+        t.start();
+    }
+
+    // Drain what is buffered, then close the sinks
+    public void stop() {
+        Thread t;
+        synchronized (this) {
+            if (!running) return;
+            running = false;
+            t = consumer;
+            consumer = null;
+        }
+        LockSupport.unpark(t);
+        try {
+            t.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (EventSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                dev.synm.SynM.LOGGER.error("Failed to close event sink {}", sink.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    @Override
+    public void logPlayerJoin(ServerPlayerEntity player) {
+        publish(PlayerEvent.of(PlayerEvent.Type.JOIN, player, null, null));
+    }
+
+    @Override
+    public void logPlayerLeave(ServerPlayerEntity player, String reason) {
+        publish(PlayerEvent.of(PlayerEvent.Type.LEAVE, player, null, reason));
+    }
+
+    @Override
+    public void logPlayerDeath(ServerPlayerEntity player, String deathMessage) {
+        publish(PlayerEvent.of(PlayerEvent.Type.DEATH, player, deathMessage, null));
+    }
+
+    @Override
+    public void logGameModeChange(ServerPlayerEntity player, String from, String to, String reason) {
+        publish(PlayerEvent.of(PlayerEvent.Type.GAMEMODE, player, from + " -> " + to, reason));
+    }
+
+    @Override
+    public void logAdminAction(UUID target, String username, String action, boolean success) {
+        publish(PlayerEvent.action(target, username, action, success ? "ok" : "failed"));
+    }
+
+    // The configured sink of the given type, or null
+    public <T extends EventSink> T getSink(Class<T> type) {
+        for (EventSink sink : sinks) {
+            if (type.isInstance(sink)) return type.cast(sink);
+        }
+        return null;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void publish(PlayerEvent event) {
+        if (buffer.offer(event)) {
+            // The consumer polls on its own; only wake it early once a full batch is waiting
+            if (buffer.size() >= batchSize) LockSupport.unpark(consumer);
+            return;
+        }
+        // While stopped nothing drains, so waiting could never succeed
+        if (overflowPolicy == OverflowPolicy.BLOCK && running) {
+            do {
+                LockSupport.unpark(consumer);
+                LockSupport.parkNanos(100_000L);
+                if (buffer.offer(event)) return;
+            } while (running);
+        }
+        dropped.incrementAndGet();
+    }
+
+    private void drainLoop() {
+        List<PlayerEvent> batch = new ArrayList<>(batchSize);
+        long reportedDrops = 0;
+        while (running) {
+            if (buffer.drain(batch, batchSize) == 0) {
+                LockSupport.parkNanos(this, flushNanos);
+            } else {
+                dispatch(batch);
+            }
+            long drops = dropped.get();
+            if (drops != reportedDrops) {
+                dev.synm.SynM.LOGGER.warn("Event buffer full: {} player events dropped so far", drops);
+                reportedDrops = drops;
+            }
+        }
+        // Stopping: hand over whatever was published before the flag flipped
+        while (buffer.drain(batch, batchSize) > 0) {
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(List<PlayerEvent> batch) {
+        for (EventSink sink : sinks) {
+            try {
+                sink.write(batch);
+            } catch (Exception e) {
+                // One failing sink must not stop the others or the consumer
+                dev.synm.SynM.LOGGER.error("Event sink {} failed to write {} events", sink.getClass().getSimpleName(), batch.size(), e);
+            }
+        }
+        batch.clear();
+    }
+}
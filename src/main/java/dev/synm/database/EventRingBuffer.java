@@ -0,0 +1,78 @@
+package dev.synm.database;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer. Each slot
+ * carries a sequence number: producers claim a position with one CAS on the
+ * tail and publish by advancing the slot's sequence, and the consumer takes
+ * slots in order once they are published. A full buffer makes offer() fail
+ * instead of waiting.
+ */
+class EventRingBuffer<T> {
+    private final int mask;
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // Written by the consumer only; volatile so size() is usable from producers
+    private volatile long head;
+
+    EventRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    boolean offer(T item) {
+        long position = tail.get();
+        while (true) {
+            int i = (int) position & mask;
+            long gap = sequences.get(i) - position;
+            if (gap == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(i, item);
+                    sequences.set(i, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (gap < 0) {
+                // The consumer has not freed this slot yet: full
+                return false;
+            } else {
+                // Another producer claimed it first
+                position = tail.get();
+            }
+        }
+    }
+
+    // Consumer thread only. Moves up to max published items into out and returns how many.
+    int drain(List<? super T> out, int max) {
+        long position = head;
+        int count = 0;
+        while (count < max) {
+            int i = (int) position & mask;
+            if (sequences.get(i) != position + 1) break;
+            out.add(slots.get(i));
+            slots.set(i, null);
+            sequences.set(i, position + mask + 1);
+            position++;
+            count++;
+        }
+        head = position;
+        return count;
+    }
+
+    // Approximate while producers are active
+    int size() {
+        return (int) Math.max(0L, tail.get() - head);
+    }
+}
@@ -0,0 +1,17 @@
+package dev.synm.database;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination for batches of player events. Called only from the logger's
+ * consumer thread, so implementations need no locking of their own.
+ */
+public interface EventSink {
+    default void open() throws IOException {}
+
+    // Persist a batch; the list is reused after the call returns
+    void write(List<PlayerEvent> batch) throws IOException;
+
+    default void close() throws IOException {}
+}
@@ -0,0 +1,156 @@
+package dev.synm.database;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Embedded, file-backed H2 store for player events, queried by
+ * /api/history. Inserts arrive as batches on the logger's consumer thread and
+ * go through one long-lived connection and prepared statement, one commit
+ * per batch. Reads come from web request threads and borrow connections
+ * from a small pool, so a slow query never holds up the writer.
+ */
+public class H2EventStore implements EventSink {
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String INSERT = "INSERT INTO player_events "
+        + "(time, type, uuid, username, world, x, y, z, detail, reason) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final String url;
+    private final int readConnections;
+    private Connection writer;
+    private PreparedStatement insert;
+    private volatile JdbcConnectionPool readers;
+
+    public H2EventStore(String path, int readConnections) {
+        // Closed explicitly on server stop, not by H2's own shutdown hook
+        this.url = "jdbc:h2:file:" + path + ";DB_CLOSE_ON_EXIT=FALSE";
+        this.readConnections = readConnections;
+    }
+
+    @Override
+    public void open() throws IOException {
+        try {
+            writer = DriverManager.getConnection(url);
+            try (Statement s = writer.createStatement()) {
+                s.execute("CREATE TABLE IF NOT EXISTS player_events ("
+                    + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "time BIGINT NOT NULL, "
+                    + "type VARCHAR(16) NOT NULL, "
+                    + "uuid UUID NOT NULL, "
+                    + "username VARCHAR(16), "
+                    + "world VARCHAR(128), "
+                    + "x DOUBLE, y DOUBLE, z DOUBLE, "
+                    + "detail VARCHAR(1024), "
+                    + "reason VARCHAR(1024))");
+                s.execute("CREATE INDEX IF NOT EXISTS idx_events_uuid_time ON player_events (uuid, time)");
+                s.execute("CREATE INDEX IF NOT EXISTS idx_events_type_time ON player_events (type, time)");
+                s.execute("CREATE INDEX IF NOT EXISTS idx_events_time ON player_events (time)");
+            }
+            writer.setAutoCommit(false);
+            insert = writer.prepareStatement(INSERT);
+            JdbcConnectionPool pool = JdbcConnectionPool.create(url, "", "");
+            pool.setMaxConnections(readConnections);
+            readers = pool;
+        } catch (SQLException e) {
+            close();
+            throw new IOException("Failed to open event store " + url, e);
+        }
+    }
+
+    @Override
+    public void write(List<PlayerEvent> batch) throws IOException {
+        if (insert == null) throw new IOException("Event store is not open");
+        try {
+            for (PlayerEvent event : batch) {
+                insert.setLong(1, event.time());
+                insert.setString(2, event.type().name());
+                insert.setObject(3, event.uuid());
+                insert.setString(4, event.username());
+                insert.setString(5, event.world());
+                setCoordinate(6, event.x());
+                setCoordinate(7, event.y());
+                setCoordinate(8, event.z());
+                insert.setString(9, truncate(event.detail()));
+                insert.setString(10, truncate(event.reason()));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            writer.commit();
+        } catch (SQLException e) {
+            try { writer.rollback(); } catch (SQLException ignored) { }
+            throw new IOException("Failed to insert " + batch.size() + " events", e);
+        }
+    }
+
+    private void setCoordinate(int index, double value) throws SQLException {
+        if (Double.isNaN(value)) insert.setNull(index, Types.DOUBLE);
+        else insert.setDouble(index, value);
+    }
+
+    private static String truncate(String value) {
+        return value != null && value.length() > 1024 ? value.substring(0, 1024) : value;
+    }
+
+    /**
+     * Newest-first events in [from, to), optionally for one player and/or one
+     * type. Callable from any thread while the store is open.
+     */
+    public List<PlayerEvent> query(UUID uuid, PlayerEvent.Type type, long from, long to, int limit) throws SQLException {
+        JdbcConnectionPool pool = readers;
+        if (pool == null) throw new SQLException("Event store is not open");
+        StringBuilder sql = new StringBuilder("SELECT time, type, uuid, username, world, x, y, z, detail, reason "
+            + "FROM player_events WHERE time >= ? AND time < ?");
+        if (uuid != null) sql.append(" AND uuid = ?");
+        if (type != null) sql.append(" AND type = ?");
+        sql.append(" ORDER BY time DESC LIMIT ?");
+        try (Connection c = pool.getConnection(); PreparedStatement s = c.prepareStatement(sql.toString())) {
+            int i = 1;
+            s.setLong(i++, from);
+            s.setLong(i++, to);
+            if (uuid != null) s.setObject(i++, uuid);
+            if (type != null) s.setString(i++, type.name());
+            s.setInt(i, Math.max(1, Math.min(limit, MAX_LIMIT)));
+            List<PlayerEvent> events = new ArrayList<>();
+            try (ResultSet rs = s.executeQuery()) {
+                while (rs.next()) {
+                    events.add(new PlayerEvent(rs.getLong(1), PlayerEvent.Type.valueOf(rs.getString(2)),
+                        rs.getObject(3, UUID.class), rs.getString(4), rs.getString(5),
+                        coordinate(rs, 6), coordinate(rs, 7), coordinate(rs, 8), rs.getString(9), rs.getString(10)));
+                }
+            }
+            return events;
+        }
+    }
+
+    private static double coordinate(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? Double.NaN : value;
+    }
+
+    @Override
+    public void close() {
+        JdbcConnectionPool pool = readers;
+        readers = null;
+        if (pool != null) pool.dispose();
+        try {
+            if (insert != null) insert.close();
+            if (writer != null) writer.close();
+        } catch (SQLException e) {
+            dev.synm.SynM.LOGGER.error("Failed to close event store", e);
+        }
+        insert = null;
+        writer = null;
+    }
+}
@@ -0,0 +1,62 @@
+package dev.synm.database;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events to a text file, one JSON object per line, flushing once per
+ * batch.
+ */
+public class JsonLinesEventSink implements EventSink {
+    private final Path file;
+    private BufferedWriter writer;
+
+    public JsonLinesEventSink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public void open() throws IOException {
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void write(List<PlayerEvent> batch) throws IOException {
+        if (writer == null) open();
+        for (PlayerEvent event : batch) {
+            JsonWriter json = new JsonWriter(writer);
+            json.setSerializeNulls(false);
+            json.beginObject();
+            json.name("time").value(event.time());
+            json.name("type").value(event.type().name());
+            json.name("uuid").value(event.uuid().toString());
+            json.name("username").value(event.username());
+            if (event.hasPosition()) {
+                json.name("world").value(event.world());
+                json.name("x").value(event.x());
+                json.name("y").value(event.y());
+                json.name("z").value(event.z());
+            }
+            json.name("detail").value(event.detail());
+            json.name("reason").value(event.reason());
+            json.endObject();
+            writer.newLine();
+        }
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package dev.synm.database;
+
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.UUID;
+
+/**
+ * One logged player event, captured on the server thread. {@code detail} is
+ * the death message, the game mode change or the admin action; {@code reason}
+ * the leave reason, what caused a game mode change, or an action's outcome.
+ * Admin actions may target offline players, so world is null and the
+ * coordinates NaN when no position is known.
+ */
+public record PlayerEvent(long time, Type type, UUID uuid, String username, String world,
+                          double x, double y, double z, String detail, String reason) {
+
+    public enum Type { JOIN, LEAVE, DEATH, GAMEMODE, ACTION }
+
+    public boolean hasPosition() {
+        return world != null;
+    }
+
+    static PlayerEvent of(Type type, ServerPlayerEntity player, String detail, String reason) {
+        return new PlayerEvent(System.currentTimeMillis(), type, player.getUuid(), player.getName().getString(),
+            player.getServerWorld().getRegistryKey().getValue().toString(),
+            player.getX(), player.getY(), player.getZ(), detail, reason);
+    }
+
+    static PlayerEvent action(UUID uuid, String username, String detail, String reason) {
+        return new PlayerEvent(System.currentTimeMillis(), Type.ACTION, uuid, username, null,
+            Double.NaN, Double.NaN, Double.NaN, detail, reason);
+    }
+}
@@ -3,11 +3,15 @@ package dev.synm.database;
 import net.minecraft.server.network.ServerPlayerEntity;
 
 /**
- * Minimal stub interface used by mixins and PlayerManager for logging.
- * Implementations can be added later; returning null from SynM.getPlayerLogger()
- * means logging is disabled without breaking compilation.
+ * Audit log of player events, called from the server thread. Implementations
+ * must return without doing I/O; see {@link BufferedPlayerLogger}. A null
+ * from SynM.getPlayerLogger() means logging is disabled.
  */
 public interface PlayerLogger {
+    void logPlayerJoin(ServerPlayerEntity player);
+    void logPlayerLeave(ServerPlayerEntity player, String reason);
     void logPlayerDeath(ServerPlayerEntity player, String deathMessage);
     void logGameModeChange(ServerPlayerEntity player, String from, String to, String reason);
+    // Portal action against a player, who may be offline; username may be null
+    void logAdminAction(java.util.UUID target, String username, String action, boolean success);
 }
@@ -0,0 +1,26 @@
+package dev.synm.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Monotonic counter; striped so hot paths on many threads don't contend
+public final class Counter {
+    final String name;
+    final String help;
+    final Map<String, String> labels;
+    private final LongAdder value = new LongAdder();
+
+    Counter(String name, String help, Map<String, String> labels) {
+        this.name = name;
+        this.help = help;
+        this.labels = labels;
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
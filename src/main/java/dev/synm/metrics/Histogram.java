@@ -0,0 +1,114 @@
+package dev.synm.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with HDR-style log-linear buckets: values below
+ * 32 get a bucket each, above that every power of two is split into 32
+ * sub-buckets, so any recorded value is off by at most ~3% and the whole
+ * long range fits in under 2k counters.
+ *
+ * Count and sum are kept for the process lifetime (for Prometheus rates);
+ * bucket counts are kept per one-minute window, two windows deep, so the
+ * quantiles describe the last one to two minutes instead of going stale.
+ * Recording is one adder bump, one sum add and one array increment.
+ */
+public final class Histogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+    static final long WINDOW_MILLIS = 60_000L;
+
+    final String name;
+    final String help;
+    final Map<String, String> labels;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLongArray[] windows = { new AtomicLongArray(BUCKETS), new AtomicLongArray(BUCKETS) };
+    private final AtomicLongArray epochs = new AtomicLongArray(2);
+
+    Histogram(String name, String help, Map<String, String> labels) {
+        this.name = name;
+        this.help = help;
+        this.labels = labels;
+    }
+
+    // Record a duration in nanoseconds; safe from any thread
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        count.increment();
+        sum.add(nanos);
+        long epoch = System.currentTimeMillis() / WINDOW_MILLIS;
+        int slot = (int) (epoch & 1);
+        if (epochs.get(slot) != epoch) rotate(slot, epoch);
+        windows[slot].incrementAndGet(index(nanos));
+    }
+
+    private synchronized void rotate(int slot, long epoch) {
+        if (epochs.get(slot) == epoch) return;
+        AtomicLongArray window = windows[slot];
+        for (int i = 0; i < BUCKETS; i++) window.set(i, 0L);
+        epochs.set(slot, epoch);
+    }
+
+    static int index(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_COUNT) return index;
+        int exponent = index / SUB_COUNT + SUB_BITS - 1;
+        long sub = index % SUB_COUNT;
+        return (SUB_COUNT + sub) << (exponent - SUB_BITS);
+    }
+
+    // Highest value that lands in the bucket, which is what a quantile reports
+    static long upperBound(int index) {
+        return index + 1 < BUCKETS ? lowerBound(index + 1) - 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * Lifetime count and sum plus the requested quantiles over the recent
+     * windows. Quantiles are 0 when nothing was recorded recently.
+     */
+    public Snapshot snapshot(double... quantiles) {
+        long epoch = System.currentTimeMillis() / WINDOW_MILLIS;
+        long[] merged = new long[BUCKETS];
+        long windowCount = 0;
+        for (int slot = 0; slot < 2; slot++) {
+            long e = epochs.get(slot);
+            if (e != epoch && e != epoch - 1) continue;
+            AtomicLongArray window = windows[slot];
+            for (int i = 0; i < BUCKETS; i++) {
+                long c = window.get(i);
+                merged[i] += c;
+                windowCount += c;
+            }
+        }
+        long[] values = new long[quantiles.length];
+        long max = 0;
+        if (windowCount > 0) {
+            int q = 0;
+            long seen = 0;
+            for (int i = 0; i < BUCKETS && q < quantiles.length; i++) {
+                if (merged[i] == 0) continue;
+                seen += merged[i];
+                while (q < quantiles.length && seen >= (long) Math.ceil(quantiles[q] * windowCount)) {
+                    values[q++] = upperBound(i);
+                }
+            }
+            for (int i = BUCKETS - 1; i >= 0; i--) {
+                if (merged[i] != 0) { max = upperBound(i); break; }
+            }
+        }
+        return new Snapshot(count.sum(), sum.sum(), windowCount, values, max);
+    }
+
+    // Quantile values line up with the quantiles asked for, in ascending order
+    public record Snapshot(long count, long sumNanos, long windowCount, long[] quantileNanos, long maxNanos) {}
+}
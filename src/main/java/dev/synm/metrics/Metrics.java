@@ -0,0 +1,228 @@
+package dev.synm.metrics;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * What SynM itself costs the server: the fixed instruments recorded on hot
+ * paths, per-handler HTTP instruments created on first use, and gauges read
+ * from their owners when scraped. Rendered as Prometheus text for /metrics
+ * and as JSON for the portal.
+ */
+public final class Metrics {
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    // Registration order is render order; keyed by name plus labels
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private static final List<String> order = new ArrayList<>();
+
+    public static final Histogram TICK = histogram("synm_tick_duration_seconds",
+        "Time SynM spends in its end-of-tick handler", Map.of());
+    public static final Histogram ACTION_QUEUE = histogram("synm_action_queue_seconds",
+        "Time admin actions wait for the server thread", Map.of());
+    public static final Histogram ACTION_RUN = histogram("synm_action_run_seconds",
+        "Time admin actions run on the server thread", Map.of());
+    public static final Histogram SAVE = histogram("synm_save_duration_seconds",
+        "Time to write synm_data.json", Map.of());
+
+    private Metrics() {}
+
+    private record Gauge(String name, String help, String type, Map<String, String> labels, DoubleSupplier value) {}
+
+    // Latency of one web portal handler, e.g. handler="players"
+    public static Histogram httpRequest(String handler) {
+        return histogram("synm_http_request_duration_seconds", "Web portal request handling time", Map.of("handler", handler));
+    }
+
+    // Response body bytes written by one web portal handler
+    public static Counter httpResponseBytes(String handler) {
+        return counter("synm_http_response_bytes_total", "Web portal response body bytes", Map.of("handler", handler));
+    }
+
+    /**
+     * Value read when scraped. Registering the same name again replaces the
+     * old supplier, so owners that are rebuilt per server start can re-register.
+     */
+    public static void gauge(String name, String help, DoubleSupplier value) {
+        register(gauges, name, Map.of(), new Gauge(name, help, "gauge", Map.of(), value));
+    }
+
+    // A running total owned elsewhere (e.g. dropped events), exposed as a counter
+    public static void counterFunction(String name, String help, DoubleSupplier value) {
+        register(gauges, name, Map.of(), new Gauge(name, help, "counter", Map.of(), value));
+    }
+
+    private static Histogram histogram(String name, String help, Map<String, String> labels) {
+        String key = key(name, labels);
+        Histogram h = histograms.get(key);
+        return h != null ? h : register(histograms, name, labels, new Histogram(name, help, labels));
+    }
+
+    private static Counter counter(String name, String help, Map<String, String> labels) {
+        String key = key(name, labels);
+        Counter c = counters.get(key);
+        return c != null ? c : register(counters, name, labels, new Counter(name, help, labels));
+    }
+
+    private static synchronized <T> T register(Map<String, T> map, String name, Map<String, String> labels, T metric) {
+        String key = key(name, labels);
+        if (map == gauges) {
+            if (map.put(key, metric) == null) order.add(key);
+            return metric;
+        }
+        T existing = map.putIfAbsent(key, metric);
+        if (existing != null) return existing;
+        order.add(key);
+        return metric;
+    }
+
+    private static String key(String name, Map<String, String> labels) {
+        return labels.isEmpty() ? name : name + labels;
+    }
+
+    // Metrics grouped by name so each family gets one HELP/TYPE header
+    private static synchronized Map<String, List<Object>> families() {
+        Map<String, List<Object>> families = new LinkedHashMap<>();
+        for (String key : order) {
+            Object metric = histograms.get(key);
+            if (metric == null) metric = counters.get(key);
+            if (metric == null) metric = gauges.get(key);
+            String name = metric instanceof Histogram h ? h.name : metric instanceof Counter c ? c.name : ((Gauge) metric).name();
+            families.computeIfAbsent(name, k -> new ArrayList<>()).add(metric);
+        }
+        return families;
+    }
+
+    // Prometheus text exposition format 0.0.4; histograms are summaries in seconds
+    public static void writePrometheus(Writer out) throws IOException {
+        for (Map.Entry<String, List<Object>> family : families().entrySet()) {
+            String name = family.getKey();
+            Object first = family.getValue().get(0);
+            if (first instanceof Histogram h) {
+                header(out, name, h.help, "summary");
+                for (Object m : family.getValue()) {
+                    Histogram histogram = (Histogram) m;
+                    Histogram.Snapshot s = histogram.snapshot(QUANTILES);
+                    for (int i = 0; i < QUANTILES.length; i++) {
+                        sample(out, name, histogram.labels, "quantile", String.valueOf(QUANTILES[i]), s.quantileNanos()[i] / NANOS_PER_SECOND);
+                    }
+                    sample(out, name + "_sum", histogram.labels, null, null, s.sumNanos() / NANOS_PER_SECOND);
+                    sample(out, name + "_count", histogram.labels, null, null, s.count());
+                }
+            } else if (first instanceof Counter c) {
+                header(out, name, c.help, "counter");
+                for (Object m : family.getValue()) {
+                    Counter counter = (Counter) m;
+                    sample(out, name, counter.labels, null, null, counter.get());
+                }
+            } else {
+                Gauge g = (Gauge) first;
+                header(out, name, g.help(), g.type());
+                for (Object m : family.getValue()) {
+                    Gauge gauge = (Gauge) m;
+                    double value = gauge.value().getAsDouble();
+                    if (Double.isFinite(value)) sample(out, name, gauge.labels(), null, null, value);
+                }
+            }
+        }
+    }
+
+    private static void header(Writer out, String name, String help, String type) throws IOException {
+        out.write("# HELP " + name + " " + help + "\n");
+        out.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void sample(Writer out, String name, Map<String, String> labels, String extraKey, String extraValue,
+                               double value) throws IOException {
+        out.write(name);
+        if (!labels.isEmpty() || extraKey != null) {
+            out.write('{');
+            boolean firstLabel = true;
+            for (Map.Entry<String, String> l : labels.entrySet()) {
+                if (!firstLabel) out.write(',');
+                out.write(l.getKey() + "=\"" + escape(l.getValue()) + "\"");
+                firstLabel = false;
+            }
+            if (extraKey != null) {
+                if (!firstLabel) out.write(',');
+                out.write(extraKey + "=\"" + extraValue + "\"");
+            }
+            out.write('}');
+        }
+        out.write(' ');
+        out.write(value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value));
+        out.write('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    // Portal view: durations in milliseconds, quantiles over the recent window
+    public static void writeJson(JsonWriter out) throws IOException {
+        out.beginObject();
+        out.name("windowSeconds").value(Histogram.WINDOW_MILLIS / 1000);
+        out.name("histograms").beginArray();
+        for (List<Object> family : families().values()) {
+            for (Object m : family) {
+                if (!(m instanceof Histogram h)) continue;
+                Histogram.Snapshot s = h.snapshot(QUANTILES);
+                out.beginObject();
+                out.name("name").value(h.name);
+                labels(out, h.labels);
+                out.name("count").value(s.count());
+                out.name("sumMs").value(s.sumNanos() / NANOS_PER_MILLI);
+                out.name("recentCount").value(s.windowCount());
+                out.name("p50Ms").value(s.quantileNanos()[0] / NANOS_PER_MILLI);
+                out.name("p90Ms").value(s.quantileNanos()[1] / NANOS_PER_MILLI);
+                out.name("p99Ms").value(s.quantileNanos()[2] / NANOS_PER_MILLI);
+                out.name("p999Ms").value(s.quantileNanos()[3] / NANOS_PER_MILLI);
+                out.name("maxMs").value(s.maxNanos() / NANOS_PER_MILLI);
+                out.endObject();
+            }
+        }
+        out.endArray();
+        out.name("values").beginArray();
+        for (List<Object> family : families().values()) {
+            for (Object m : family) {
+                if (m instanceof Histogram) continue;
+                out.beginObject();
+                if (m instanceof Counter c) {
+                    out.name("name").value(c.name);
+                    labels(out, c.labels);
+                    out.name("type").value("counter");
+                    out.name("value").value(c.get());
+                } else {
+                    Gauge g = (Gauge) m;
+                    out.name("name").value(g.name());
+                    labels(out, g.labels());
+                    out.name("type").value(g.type());
+                    double value = g.value().getAsDouble();
+                    if (Double.isFinite(value)) out.name("value").value(value);
+                }
+                out.endObject();
+            }
+        }
+        out.endArray();
+        out.endObject();
+    }
+
+    private static void labels(JsonWriter out, Map<String, String> labels) throws IOException {
+        if (labels.isEmpty()) return;
+        out.name("labels").beginObject();
+        for (Map.Entry<String, String> l : labels.entrySet()) out.name(l.getKey()).value(l.getValue());
+        out.endObject();
+    }
+}
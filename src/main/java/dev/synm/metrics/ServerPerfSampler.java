@@ -0,0 +1,268 @@
+package dev.synm.metrics;
+
+import com.google.gson.stream.JsonWriter;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Whole-server performance, for /api/server/perf. Every tick only stores
+ * its duration and start-to-start interval in two primitive rings (one
+ * minute deep). Every sampleTicks ticks the server thread turns those into
+ * TPS and MSPT percentiles, counts chunks and entities per world, reads
+ * heap, GC and thread stats from the JMX beans, and publishes the result as
+ * an immutable {@link Sample}. A short form of each sample goes into a
+ * columnar history ring sized for an hour, which the portal charts.
+ *
+ * {@link #tickStart}, {@link #tickEnd} and {@link #reset} run on the server
+ * thread; {@link #latest} and {@link #write} may be called from any thread.
+ */
+public class ServerPerfSampler {
+    private static final int TICK_RING = 1200;
+    private static final int SHORT_WINDOW = 100;
+
+    private final int sampleTicks;
+    private final int historySize;
+    // Per-tick rings, server thread only
+    private final long[] tickNanos = new long[TICK_RING];
+    private final long[] intervalNanos = new long[TICK_RING];
+    private long tickCount;
+    private long lastStart;
+    private long currentStart;
+    // Last hour, one entry per sample; guarded by this
+    private final long[] historyTime;
+    private final float[] historyTps;
+    private final float[] historyMsptMean;
+    private final float[] historyMsptMax;
+    private final long[] historyHeapUsed;
+    private final int[] historyChunks;
+    private final int[] historyEntities;
+    private int historyHead;
+    private int historyCount;
+    private volatile Sample latest;
+    // Bumped per sample so rendered responses can be cached until the next one
+    private volatile long version;
+
+    public record WorldStats(String id, int loadedChunks, int entities, int players) {}
+
+    public record GcStats(String name, long count, long timeMillis) {}
+
+    public record Sample(long time, double tps5s, double tps1m, double msptMean, double msptP50, double msptP95,
+                         double msptP99, double msptMax, List<WorldStats> worlds, long heapUsed, long heapCommitted,
+                         long heapMax, long nonHeapUsed, List<GcStats> gc, int threads, int daemonThreads, int peakThreads) {}
+
+    public ServerPerfSampler(int sampleTicks, int historyMinutes) {
+        this.sampleTicks = sampleTicks;
+        this.historySize = Math.max(1, (int) ((long) historyMinutes * 60 * 20 / sampleTicks));
+        this.historyTime = new long[historySize];
+        this.historyTps = new float[historySize];
+        this.historyMsptMean = new float[historySize];
+        this.historyMsptMax = new float[historySize];
+        this.historyHeapUsed = new long[historySize];
+        this.historyChunks = new int[historySize];
+        this.historyEntities = new int[historySize];
+    }
+
+    // A new server starts with empty rings; integrated servers can start more than once
+    public synchronized void reset() {
+        tickCount = 0;
+        lastStart = 0L;
+        historyHead = 0;
+        historyCount = 0;
+        latest = null;
+        version++;
+    }
+
+    public void tickStart() {
+        currentStart = System.nanoTime();
+    }
+
+    public void tickEnd(MinecraftServer server) {
+        if (currentStart == 0L) return;
+        int slot = (int) (tickCount % TICK_RING);
+        tickNanos[slot] = System.nanoTime() - currentStart;
+        intervalNanos[slot] = lastStart != 0L ? currentStart - lastStart : 50_000_000L;
+        lastStart = currentStart;
+        if (++tickCount % sampleTicks == 0) sample(server);
+    }
+
+    public Sample latest() {
+        return latest;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    private void sample(MinecraftServer server) {
+        int n = (int) Math.min(tickCount, TICK_RING);
+        long[] sorted = new long[n];
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            sorted[i] = tickNanos[(int) ((tickCount - 1 - i) % TICK_RING)];
+            total += sorted[i];
+        }
+        Arrays.sort(sorted);
+
+        List<WorldStats> worlds = new ArrayList<>();
+        for (ServerWorld world : server.getWorlds()) {
+            int entities = 0;
+            for (Entity ignored : world.iterateEntities()) entities++;
+            worlds.add(new WorldStats(world.getRegistryKey().getValue().toString(),
+                world.getChunkManager().getLoadedChunkCount(), entities, world.getPlayers().size()));
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        List<GcStats> gc = new ArrayList<>();
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gc.add(new GcStats(bean.getName(), bean.getCollectionCount(), bean.getCollectionTime()));
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        Sample s = new Sample(System.currentTimeMillis(), tps(Math.min(n, SHORT_WINDOW)), tps(n),
+            millis(total / n), millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.95)),
+            millis(percentile(sorted, 0.99)), millis(sorted[n - 1]), List.copyOf(worlds),
+            heap.getUsed(), heap.getCommitted(), heap.getMax(), memory.getNonHeapMemoryUsage().getUsed(),
+            List.copyOf(gc), threads.getThreadCount(), threads.getDaemonThreadCount(), threads.getPeakThreadCount());
+        record(s);
+    }
+
+    // Ticks per second over the newest n ticks, from their start-to-start intervals
+    private double tps(int n) {
+        long elapsed = 0;
+        for (int i = 0; i < n; i++) elapsed += intervalNanos[(int) ((tickCount - 1 - i) % TICK_RING)];
+        return elapsed > 0 ? Math.min(20.0, n * 1_000_000_000.0 / elapsed) : 20.0;
+    }
+
+    private static long percentile(long[] sorted, double q) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(q * sorted.length) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private synchronized void record(Sample s) {
+        int i = historyHead;
+        int chunks = 0, entities = 0;
+        for (WorldStats w : s.worlds()) {
+            chunks += w.loadedChunks();
+            entities += w.entities();
+        }
+        historyTime[i] = s.time();
+        historyTps[i] = (float) s.tps5s();
+        historyMsptMean[i] = (float) s.msptMean();
+        historyMsptMax[i] = (float) s.msptMax();
+        historyHeapUsed[i] = s.heapUsed();
+        historyChunks[i] = chunks;
+        historyEntities[i] = entities;
+        historyHead = (i + 1) % historySize;
+        if (historyCount < historySize) historyCount++;
+        latest = s;
+        version++;
+    }
+
+    /**
+     * Current sample plus up to {@code historyMinutes} of history as parallel
+     * arrays, oldest first.
+     */
+    public void write(JsonWriter out, int historyMinutes) throws IOException {
+        Sample s = latest;
+        out.beginObject();
+        if (s == null) {
+            // Less than one sample interval since the server started
+            out.name("warmingUp").value(true);
+            out.endObject();
+            return;
+        }
+        out.name("time").value(s.time());
+        out.name("tps").beginObject();
+        out.name("5s").value(round(s.tps5s()));
+        out.name("1m").value(round(s.tps1m()));
+        out.endObject();
+        out.name("mspt").beginObject();
+        out.name("mean").value(round(s.msptMean()));
+        out.name("p50").value(round(s.msptP50()));
+        out.name("p95").value(round(s.msptP95()));
+        out.name("p99").value(round(s.msptP99()));
+        out.name("max").value(round(s.msptMax()));
+        out.endObject();
+        out.name("worlds").beginArray();
+        for (WorldStats w : s.worlds()) {
+            out.beginObject();
+            out.name("id").value(w.id());
+            out.name("loadedChunks").value(w.loadedChunks());
+            out.name("entities").value(w.entities());
+            out.name("players").value(w.players());
+            out.endObject();
+        }
+        out.endArray();
+        out.name("memory").beginObject();
+        out.name("heapUsed").value(s.heapUsed());
+        out.name("heapCommitted").value(s.heapCommitted());
+        out.name("heapMax").value(s.heapMax());
+        out.name("nonHeapUsed").value(s.nonHeapUsed());
+        out.endObject();
+        out.name("gc").beginArray();
+        for (GcStats g : s.gc()) {
+            out.beginObject();
+            out.name("name").value(g.name());
+            out.name("count").value(g.count());
+            out.name("timeMs").value(g.timeMillis());
+            out.endObject();
+        }
+        out.endArray();
+        out.name("threads").beginObject();
+        out.name("live").value(s.threads());
+        out.name("daemon").value(s.daemonThreads());
+        out.name("peak").value(s.peakThreads());
+        out.endObject();
+        writeHistory(out, historyMinutes);
+        out.endObject();
+    }
+
+    private synchronized void writeHistory(JsonWriter out, int minutes) throws IOException {
+        int n = Math.min(historyCount, (int) Math.min(historySize, (long) minutes * 60 * 20 / sampleTicks));
+        int first = Math.floorMod(historyHead - n, historySize);
+        out.name("history").beginObject();
+        out.name("intervalSeconds").value(sampleTicks / 20.0);
+        out.name("time").beginArray();
+        for (int k = 0; k < n; k++) out.value(historyTime[(first + k) % historySize]);
+        out.endArray();
+        out.name("tps").beginArray();
+        for (int k = 0; k < n; k++) out.value(round(historyTps[(first + k) % historySize]));
+        out.endArray();
+        out.name("msptMean").beginArray();
+        for (int k = 0; k < n; k++) out.value(round(historyMsptMean[(first + k) % historySize]));
+        out.endArray();
+        out.name("msptMax").beginArray();
+        for (int k = 0; k < n; k++) out.value(round(historyMsptMax[(first + k) % historySize]));
+        out.endArray();
+        out.name("heapUsed").beginArray();
+        for (int k = 0; k < n; k++) out.value(historyHeapUsed[(first + k) % historySize]);
+        out.endArray();
+        out.name("loadedChunks").beginArray();
+        for (int k = 0; k < n; k++) out.value(historyChunks[(first + k) % historySize]);
+        out.endArray();
+        out.name("entities").beginArray();
+        for (int k = 0; k < n; k++) out.value(historyEntities[(first + k) % historySize]);
+        out.endArray();
+        out.endObject();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
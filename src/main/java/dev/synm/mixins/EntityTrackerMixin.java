@@ -0,0 +1,34 @@
+package dev.synm.mixins;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.server.network.EntityTrackerEntry;
+import net.minecraft.server.network.PlayerAssociatedNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.Set;
+
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(targets = "net.minecraft.server.world.ServerChunkLoadingManager$EntityTracker")
+public class EntityTrackerMixin {
+    @Shadow @Final Entity entity;
+    @Shadow @Final EntityTrackerEntry entry;
+    @Shadow @Final private Set<PlayerAssociatedNetworkHandler> listeners;
+
+    // Vanished players are never tracked by viewers who may not see them; anyone already tracking stops
+    @Inject(method = "updateTrackedStatus(Lnet/minecraft/server/network/ServerPlayerEntity;)V", at = @At("HEAD"), cancellable = true)
+    private void hideVanishedPlayer(ServerPlayerEntity viewer, CallbackInfo ci) {
+        if (!(entity instanceof ServerPlayerEntity target) || viewer == target) return;
+        var playerManager = dev.synm.SynM.getPlayerManager();
+        if (playerManager == null || playerManager.canSee(viewer, target.getUuid())) return;
+        if (listeners.remove(viewer.networkHandler)) {
+            entry.stopTracking(viewer);
+        }
+        ci.cancel();
+    }
+}
@@ -0,0 +1,43 @@
+package dev.synm.mixins;
+
+import net.minecraft.network.packet.Packet;
+import net.minecraft.network.packet.s2c.play.PlayerListS2CPacket;
+import net.minecraft.server.network.ServerCommonNetworkHandler;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.ModifyVariable;
+
+@Mixin(ServerCommonNetworkHandler.class)
+public class ServerCommonNetworkHandlerMixin {
+
+    // Strip vanished players from player-list packets (e.g. the full list sent on join) for viewers who may not see them
+    @ModifyVariable(method = "send(Lnet/minecraft/network/packet/Packet;Lnet/minecraft/network/PacketCallbacks;)V",
+        at = @At("HEAD"), argsOnly = true)
+    private Packet<?> filterVanishedEntries(Packet<?> packet) {
+        if (!(packet instanceof PlayerListS2CPacket list) || !((Object) this instanceof ServerPlayNetworkHandler handler)) return packet;
+        var playerManager = dev.synm.SynM.getPlayerManager();
+        if (playerManager == null || !playerManager.hasVanishedPlayers()) return packet;
+
+        ServerPlayerEntity viewer = handler.player;
+        boolean hidden = false;
+        for (PlayerListS2CPacket.Entry entry : list.getEntries()) {
+            if (!playerManager.canSee(viewer, entry.profileId())) { hidden = true; break; }
+        }
+        if (!hidden) return packet;
+
+        List<ServerPlayerEntity> visible = new ArrayList<>();
+        var players = viewer.getServer().getPlayerManager();
+        for (PlayerListS2CPacket.Entry entry : list.getEntries()) {
+            if (!playerManager.canSee(viewer, entry.profileId())) continue;
+            ServerPlayerEntity player = players.getPlayer(entry.profileId());
+            if (player != null) visible.add(player);
+        }
+        return new PlayerListS2CPacket(list.getActions(), visible);
+    }
+}
@@ -0,0 +1,50 @@
+package dev.synm.mixins;
+
+import net.minecraft.network.packet.c2s.play.PlayerMoveC2SPacket;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.math.Vec3d;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerPlayNetworkHandler.class)
+public class ServerPlayNetworkHandlerMixin {
+    @Shadow public ServerPlayerEntity player;
+    @Shadow private Vec3d requestedTeleportPos;
+
+    // Drop position updates from frozen players before they are applied; looking around is still allowed.
+    // Injected after the hop to the server thread so the freeze check and any resync run there.
+    @Inject(method = "onPlayerMove", at = @At(value = "INVOKE",
+        target = "Lnet/minecraft/network/NetworkThreadUtils;forceMainThread(Lnet/minecraft/network/packet/Packet;Lnet/minecraft/network/listener/PacketListener;Lnet/minecraft/server/world/ServerWorld;)V",
+        shift = At.Shift.AFTER), cancellable = true)
+    private void onFrozenPlayerMove(PlayerMoveC2SPacket packet, CallbackInfo ci) {
+        if (!packet.changesPosition()) return;
+        var playerManager = dev.synm.SynM.getPlayerManager();
+        if (playerManager == null || !playerManager.shouldPreventMovement(player)) return;
+        // A resync is already in flight; vanilla ignores moves until the client confirms it
+        if (requestedTeleportPos != null) return;
+        ci.cancel();
+
+        // Full (move + look) packets still carry rotation the player is allowed to change
+        if (packet.changesLook()) {
+            float yaw = packet.getYaw(player.getYaw());
+            player.setYaw(yaw);
+            player.setPitch(packet.getPitch(player.getPitch()));
+            player.setHeadYaw(yaw);
+        }
+
+        // The client predicted a move the server never applied; one teleport pulls it back, and further
+        // packets fall through to vanilla until it is acknowledged
+        double dx = packet.getX(player.getX()) - player.getX();
+        double dy = packet.getY(player.getY()) - player.getY();
+        double dz = packet.getZ(player.getZ()) - player.getZ();
+        if (dx * dx + dy * dy + dz * dz > 1.0E-4) {
+            ((ServerPlayNetworkHandler) (Object) this).requestTeleport(
+                player.getX(), player.getY(), player.getZ(), player.getYaw(), player.getPitch());
+        }
+    }
+}
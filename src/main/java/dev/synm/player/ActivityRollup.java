@@ -0,0 +1,465 @@
+package dev.synm.player;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Time-bucketed activity totals behind /api/analytics. Join and leave events
+ * are folded into fixed rings as they happen: hourly concurrency (player-time
+ * and peak), daily and weekly unique players, new-player cohorts with the
+ * number of them seen again 1..30 days later, and a short per-player daily
+ * playtime history. A request only reads the rings, so its cost depends on the
+ * window asked for, not on how much session history exists.
+ *
+ * The rings are rebuilt from the session store at startup, which keeps them
+ * across restarts without a file of their own. All buckets are UTC.
+ */
+class ActivityRollup {
+    static final long HOUR_MS = 3_600_000L;
+    static final long DAY_MS = 24 * HOUR_MS;
+    static final int HOURS = 24 * 30;
+    static final int DAYS = 90;
+    static final int WEEKS = 13;
+    static final int PLAYER_DAYS = 30;
+    static final int RETENTION_DAYS = 30;
+    private static final int TOP_PLAYERS = 10;
+    // Days after the first visit that the retention section reports on
+    private static final int[] RETENTION_OFFSETS = {1, 7, 30};
+
+    // Rings indexed by bucket number modulo their length; the stamp says which bucket a slot holds
+    private final long[] hourStamp = new long[HOURS];
+    private final long[] hourPlayerMillis = new long[HOURS];
+    private final int[] hourPeak = new int[HOURS];
+
+    private final long[] dayStamp = new long[DAYS];
+    private final long[] dayPlayerMillis = new long[DAYS];
+    private final int[] dayPeak = new int[DAYS];
+    private final int[] dayUnique = new int[DAYS];
+    // Players first seen that day, and how many of them came back N days later
+    private final int[] dayNew = new int[DAYS];
+    private final int[][] dayReturned = new int[DAYS][RETENTION_DAYS + 1];
+
+    private final long[] weekStamp = new long[WEEKS];
+    private final int[] weekUnique = new int[WEEKS];
+
+    private final Map<UUID, PlayerActivity> players = new HashMap<>();
+    private final Map<UUID, Long> openSessions = new HashMap<>();
+    private int online;
+    private long lastChange = -1L;
+    private long newestDay = Long.MIN_VALUE;
+
+    ActivityRollup() {
+        Arrays.fill(hourStamp, Long.MIN_VALUE);
+        Arrays.fill(dayStamp, Long.MIN_VALUE);
+        Arrays.fill(weekStamp, Long.MIN_VALUE);
+    }
+
+    // Rebuild from stored history; open sessions left by a crash are ignored
+    synchronized void seed(SessionStore store, long now) {
+        long windowStart = Math.floorDiv(now, DAY_MS) * DAY_MS - (DAYS - 1) * DAY_MS;
+        List<SeedEvent> events = new ArrayList<>();
+        for (Map.Entry<UUID, SessionStore.History> entry : store.histories().entrySet()) {
+            SessionStore.Columns columns = entry.getValue().columns();
+            if (columns.starts().length == 0) continue;
+            long firstSeen = columns.starts()[0];
+            for (int i = 0; i < columns.starts().length; i++) {
+                long start = columns.starts()[i];
+                long end = columns.ends()[i];
+                if (end <= 0 || end < windowStart || end < start || end > now) continue;
+                events.add(new SeedEvent(Math.max(start, windowStart), true, entry.getKey(), firstSeen));
+                events.add(new SeedEvent(end, false, entry.getKey(), firstSeen));
+            }
+        }
+        // Leaves sort before joins at the same instant so a reconnect never counts double
+        events.sort((a, b) -> a.time != b.time ? Long.compare(a.time, b.time) : Boolean.compare(a.join, b.join));
+        for (SeedEvent e : events) {
+            if (e.join) join(e.uuid, e.time, e.firstSeen);
+            else leave(e.uuid, e.time);
+        }
+        advance(now);
+    }
+
+    private record SeedEvent(long time, boolean join, UUID uuid, long firstSeen) {}
+
+    synchronized void join(UUID uuid, long time, long firstSeen) {
+        advance(time);
+        if (openSessions.putIfAbsent(uuid, time) != null) return;
+        online++;
+        long day = Math.floorDiv(time, DAY_MS);
+        int h = hourSlot(Math.floorDiv(time, HOUR_MS));
+        if (h >= 0) hourPeak[h] = Math.max(hourPeak[h], online);
+        int d = daySlot(day);
+        if (d >= 0) dayPeak[d] = Math.max(dayPeak[d], online);
+
+        PlayerActivity activity = players.get(uuid);
+        if (activity == null) {
+            long firstDay = Math.floorDiv(Math.min(firstSeen, time), DAY_MS);
+            activity = new PlayerActivity(firstDay);
+            players.put(uuid, activity);
+            int f = daySlot(firstDay);
+            if (f >= 0) dayNew[f]++;
+        }
+        markActive(activity, day);
+    }
+
+    synchronized void leave(UUID uuid, long time) {
+        advance(time);
+        Long start = openSessions.remove(uuid);
+        if (start == null) return;
+        online--;
+        PlayerActivity activity = players.get(uuid);
+        if (activity == null) return;
+        // Split the session at midnight so each day gets its share
+        long from = start;
+        while (from < time) {
+            long day = Math.floorDiv(from, DAY_MS);
+            long to = Math.min(time, (day + 1) * DAY_MS);
+            activity.add(day, to - from);
+            markActive(activity, day);
+            from = to;
+        }
+    }
+
+    // Accrue online * elapsed into every hour and day between the last event and now
+    private void advance(long now) {
+        if (lastChange < 0) lastChange = now;
+        if (now <= lastChange) return;
+        // Anything older than the day ring would be overwritten straight away
+        long from = Math.max(lastChange, now - DAYS * DAY_MS);
+        long previousDay = Math.floorDiv(lastChange, DAY_MS);
+        while (from < now) {
+            long hour = Math.floorDiv(from, HOUR_MS);
+            long to = Math.min(now, (hour + 1) * HOUR_MS);
+            long playerMillis = online * (to - from);
+            int h = hourSlot(hour);
+            if (h >= 0) {
+                hourPlayerMillis[h] += playerMillis;
+                hourPeak[h] = Math.max(hourPeak[h], online);
+            }
+            long day = Math.floorDiv(from, DAY_MS);
+            int d = daySlot(day);
+            if (d >= 0) {
+                dayPlayerMillis[d] += playerMillis;
+                dayPeak[d] = Math.max(dayPeak[d], online);
+            }
+            // Players still online at midnight count as active on the new day
+            if (day > previousDay) {
+                previousDay = day;
+                for (UUID uuid : openSessions.keySet()) {
+                    PlayerActivity activity = players.get(uuid);
+                    if (activity != null) markActive(activity, day);
+                }
+            }
+            from = to;
+        }
+        lastChange = now;
+    }
+
+    private void markActive(PlayerActivity activity, long day) {
+        if (day <= activity.lastDay) return;
+        activity.lastDay = day;
+        int d = daySlot(day);
+        if (d >= 0) dayUnique[d]++;
+        long offset = day - activity.firstDay;
+        if (offset >= 1 && offset <= RETENTION_DAYS) {
+            int f = daySlot(activity.firstDay);
+            if (f >= 0) dayReturned[f][(int) offset]++;
+        }
+        long week = weekOf(day);
+        if (week > activity.lastWeek) {
+            activity.lastWeek = week;
+            int w = weekSlot(week);
+            if (w >= 0) weekUnique[w]++;
+        }
+    }
+
+    private int hourSlot(long hour) {
+        int i = (int) Math.floorMod(hour, HOURS);
+        if (hourStamp[i] == hour) return i;
+        if (hourStamp[i] > hour) return -1;
+        hourStamp[i] = hour;
+        hourPlayerMillis[i] = 0L;
+        hourPeak[i] = online;
+        return i;
+    }
+
+    // -1 for days already rotated out of the ring
+    private int daySlot(long day) {
+        if (newestDay != Long.MIN_VALUE && day <= newestDay - DAYS) return -1;
+        int i = (int) Math.floorMod(day, DAYS);
+        if (dayStamp[i] == day) return i;
+        dayStamp[i] = day;
+        dayPlayerMillis[i] = 0L;
+        dayPeak[i] = online;
+        dayUnique[i] = 0;
+        dayNew[i] = 0;
+        Arrays.fill(dayReturned[i], 0);
+        newestDay = Math.max(newestDay, day);
+        return i;
+    }
+
+    private int weekSlot(long week) {
+        int i = (int) Math.floorMod(week, WEEKS);
+        if (weekStamp[i] == week) return i;
+        if (weekStamp[i] > week) return -1;
+        weekStamp[i] = week;
+        weekUnique[i] = 0;
+        return i;
+    }
+
+    // Weeks start on Monday; epoch day 0 was a Thursday
+    private static long weekOf(long day) {
+        return Math.floorDiv(day + 3, 7);
+    }
+
+    // Copy of the buckets one response needs, taken under the lock and rendered outside it
+    private record Window(long now, int days, long today, long firstDay, int online,
+                          long firstHour, double[] hourAverage, int[] hourPeak,
+                          int[] dayUnique, int[] dayNew, long[] dayPlayTime, int[] dayPeak, int[][] dayReturned,
+                          long firstWeek, int[] weekUnique, List<Map.Entry<UUID, long[]>> series) {}
+
+    /**
+     * Write the analytics document for the last {@code days} days (capped to
+     * the ring sizes). With a player filter, the trend section covers only
+     * that player instead of the top players by playtime. Join and leave only
+     * wait for the copy, not for the JSON.
+     */
+    void write(JsonWriter out, int days, UUID player, long now) throws IOException {
+        Window w;
+        synchronized (this) {
+            w = capture(Math.max(1, Math.min(days, DAYS)), player, now);
+        }
+        render(out, w);
+    }
+
+    private Window capture(int days, UUID player, long now) {
+        advance(now);
+        long today = Math.floorDiv(now, DAY_MS);
+        long firstDay = today - days + 1;
+
+        // Hourly concurrency: average players online and the peak within each hour
+        long currentHour = Math.floorDiv(now, HOUR_MS);
+        int hours = Math.min(days * 24, HOURS);
+        long firstHour = currentHour - hours + 1;
+        double[] hourAverage = new double[hours];
+        int[] hourPeaks = new int[hours];
+        for (int k = 0; k < hours; k++) {
+            long hour = firstHour + k;
+            int i = (int) Math.floorMod(hour, HOURS);
+            if (hourStamp[i] != hour) continue;
+            long span = hour == currentHour ? Math.max(1L, now - hour * HOUR_MS) : HOUR_MS;
+            hourAverage[k] = (double) hourPlayerMillis[i] / span;
+            hourPeaks[k] = hourPeak[i];
+        }
+
+        int[] unique = new int[days];
+        int[] fresh = new int[days];
+        long[] playTime = new long[days];
+        int[] peaks = new int[days];
+        int[][] returned = new int[days][RETENTION_OFFSETS.length];
+        for (int k = 0; k < days; k++) {
+            long day = firstDay + k;
+            int i = (int) Math.floorMod(day, DAYS);
+            if (dayStamp[i] != day) continue;
+            unique[k] = dayUnique[i];
+            fresh[k] = dayNew[i];
+            playTime[k] = dayPlayerMillis[i];
+            peaks[k] = dayPeak[i];
+            for (int o = 0; o < RETENTION_OFFSETS.length; o++) returned[k][o] = dayReturned[i][RETENTION_OFFSETS[o]];
+        }
+
+        long currentWeek = weekOf(today);
+        long firstWeek = Math.max(weekOf(firstDay), currentWeek - WEEKS + 1);
+        int[] weeks = new int[(int) (currentWeek - firstWeek + 1)];
+        for (int k = 0; k < weeks.length; k++) {
+            long week = firstWeek + k;
+            int i = (int) Math.floorMod(week, WEEKS);
+            if (weekStamp[i] == week) weeks[k] = weekUnique[i];
+        }
+
+        return new Window(now, days, today, firstDay, online, firstHour, hourAverage, hourPeaks,
+            unique, fresh, playTime, peaks, returned, firstWeek, weeks, trendSeries(player, now));
+    }
+
+    private static void render(JsonWriter out, Window w) throws IOException {
+        out.beginObject();
+        out.name("generatedAt").value(w.now());
+        out.name("timeZone").value("UTC");
+        out.name("days").value(w.days());
+        out.name("online").value(w.online());
+
+        double[] hourOfDayAverage = new double[24];
+        int[] hourOfDaySamples = new int[24];
+        out.name("concurrency").beginArray();
+        for (int k = 0; k < w.hourAverage().length; k++) {
+            long hour = w.firstHour() + k;
+            int hourOfDay = (int) Math.floorMod(hour, 24);
+            hourOfDayAverage[hourOfDay] += w.hourAverage()[k];
+            hourOfDaySamples[hourOfDay]++;
+            out.beginObject();
+            out.name("hour").value(hour * HOUR_MS);
+            out.name("average").value(round(w.hourAverage()[k]));
+            out.name("peak").value(w.hourPeak()[k]);
+            out.endObject();
+        }
+        out.endArray();
+
+        // Hours of the day ranked by average concurrency over the window
+        Integer[] ranked = new Integer[24];
+        for (int i = 0; i < 24; i++) {
+            ranked[i] = i;
+            if (hourOfDaySamples[i] > 0) hourOfDayAverage[i] /= hourOfDaySamples[i];
+        }
+        Arrays.sort(ranked, (a, b) -> Double.compare(hourOfDayAverage[b], hourOfDayAverage[a]));
+        out.name("peakHours").beginArray();
+        for (int hourOfDay : ranked) {
+            out.beginObject();
+            out.name("hourOfDay").value(hourOfDay);
+            out.name("average").value(round(hourOfDayAverage[hourOfDay]));
+            out.endObject();
+        }
+        out.endArray();
+
+        out.name("daily").beginArray();
+        for (int k = 0; k < w.days(); k++) {
+            out.beginObject();
+            out.name("day").value((w.firstDay() + k) * DAY_MS);
+            out.name("uniquePlayers").value(w.dayUnique()[k]);
+            out.name("newPlayers").value(w.dayNew()[k]);
+            out.name("playTime").value(w.dayPlayTime()[k]);
+            out.name("peak").value(w.dayPeak()[k]);
+            out.endObject();
+        }
+        out.endArray();
+
+        out.name("weekly").beginArray();
+        for (int k = 0; k < w.weekUnique().length; k++) {
+            out.beginObject();
+            out.name("weekStart").value(((w.firstWeek() + k) * 7 - 3) * DAY_MS);
+            out.name("uniquePlayers").value(w.weekUnique()[k]);
+            out.endObject();
+        }
+        out.endArray();
+
+        writeRetention(out, w);
+        writeTrends(out, w);
+        out.endObject();
+    }
+
+    // Share of each daily cohort seen again after 1, 7 and 30 days; cohorts too young for an offset are left out of it
+    private static void writeRetention(JsonWriter out, Window w) throws IOException {
+        long[] cohortTotal = new long[RETENTION_OFFSETS.length];
+        long[] returnedTotal = new long[RETENTION_OFFSETS.length];
+        out.name("retention").beginObject();
+        out.name("cohorts").beginArray();
+        for (int k = 0; k < w.days(); k++) {
+            if (w.dayNew()[k] == 0) continue;
+            long day = w.firstDay() + k;
+            out.beginObject();
+            out.name("day").value(day * DAY_MS);
+            out.name("newPlayers").value(w.dayNew()[k]);
+            for (int o = 0; o < RETENTION_OFFSETS.length; o++) {
+                if (day + RETENTION_OFFSETS[o] > w.today()) continue;
+                cohortTotal[o] += w.dayNew()[k];
+                returnedTotal[o] += w.dayReturned()[k][o];
+                out.name("day" + RETENTION_OFFSETS[o]).value(w.dayReturned()[k][o]);
+            }
+            out.endObject();
+        }
+        out.endArray();
+        for (int o = 0; o < RETENTION_OFFSETS.length; o++) {
+            out.name("day" + RETENTION_OFFSETS[o]).value(cohortTotal[o] > 0 ? round((double) returnedTotal[o] / cohortTotal[o]) : 0.0);
+        }
+        out.endObject();
+    }
+
+    // Daily playtime series for one player, or for everyone active in the window (ranked outside the lock)
+    private List<Map.Entry<UUID, long[]>> trendSeries(UUID player, long now) {
+        long firstDay = Math.floorDiv(now, DAY_MS) - PLAYER_DAYS + 1;
+        List<Map.Entry<UUID, long[]>> series = new ArrayList<>();
+        if (player != null) {
+            PlayerActivity activity = players.get(player);
+            if (activity != null) series.add(Map.entry(player, activity.series(firstDay, openSessions.get(player), now)));
+        } else {
+            for (Map.Entry<UUID, PlayerActivity> entry : players.entrySet()) {
+                PlayerActivity activity = entry.getValue();
+                // Nobody idle for the whole window can make the list
+                if (activity.lastDay < firstDay) continue;
+                series.add(Map.entry(entry.getKey(), activity.series(firstDay, openSessions.get(entry.getKey()), now)));
+            }
+        }
+        return series;
+    }
+
+    private static void writeTrends(JsonWriter out, Window w) throws IOException {
+        long firstDay = w.today() - PLAYER_DAYS + 1;
+        List<Map.Entry<UUID, long[]>> series = new ArrayList<>(w.series());
+        series.sort((a, b) -> Long.compare(b.getValue()[PLAYER_DAYS], a.getValue()[PLAYER_DAYS]));
+        if (series.size() > TOP_PLAYERS) series = series.subList(0, TOP_PLAYERS);
+        out.name("players").beginArray();
+        for (Map.Entry<UUID, long[]> entry : series) {
+            long[] daily = entry.getValue();
+            out.beginObject();
+            out.name("uuid").value(entry.getKey().toString());
+            out.name("playTime").value(daily[PLAYER_DAYS]);
+            out.name("firstDay").value(firstDay * DAY_MS);
+            out.name("daily").beginArray();
+            for (int i = 0; i < PLAYER_DAYS; i++) out.value(daily[i]);
+            out.endArray();
+            out.endObject();
+        }
+        out.endArray();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+
+    private static final class PlayerActivity {
+        final long firstDay;
+        long lastDay = Long.MIN_VALUE;
+        long lastWeek = Long.MIN_VALUE;
+        final long[] dayStamp = new long[PLAYER_DAYS];
+        final long[] dayMillis = new long[PLAYER_DAYS];
+
+        PlayerActivity(long firstDay) {
+            this.firstDay = firstDay;
+            Arrays.fill(dayStamp, Long.MIN_VALUE);
+        }
+
+        void add(long day, long millis) {
+            int i = (int) Math.floorMod(day, PLAYER_DAYS);
+            if (dayStamp[i] != day) {
+                if (dayStamp[i] > day) return;
+                dayStamp[i] = day;
+                dayMillis[i] = 0L;
+            }
+            dayMillis[i] += millis;
+        }
+
+        // Daily playtime from firstDay, including the open session so far; the last element is the total
+        long[] series(long firstDay, Long openSince, long now) {
+            long[] out = new long[PLAYER_DAYS + 1];
+            for (int k = 0; k < PLAYER_DAYS; k++) {
+                long day = firstDay + k;
+                int i = (int) Math.floorMod(day, PLAYER_DAYS);
+                long millis = dayStamp[i] == day ? dayMillis[i] : 0L;
+                if (openSince != null) {
+                    long from = Math.max(openSince, day * DAY_MS);
+                    long to = Math.min(now, (day + 1) * DAY_MS);
+                    if (to > from) millis += to - from;
+                }
+                out[k] = millis;
+                out[PLAYER_DAYS] += millis;
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package dev.synm.player;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Frozen players and their anchors, packed into parallel arrays so the
+ * per-tick enforcement pass is a straight loop: a direct entity reference,
+ * the anchor world's RegistryKey compared by identity, and primitive
+ * coordinates. The pass allocates nothing unless it has to pull someone back.
+ *
+ * Movement the client asks for is already dropped at the packet level by
+ * ServerPlayNetworkHandlerMixin, so the pass only acts on displacement that
+ * happens server-side (pistons, vehicles, portals).
+ *
+ * Mutated and enforced on the server thread only; {@link #contains} may be
+ * called from any thread.
+ */
+class FrozenPlayers {
+    private static final double DRIFT_SQUARED = 0.001;
+
+    // UUID -> index into the arrays below; removal swaps the last entry into the hole
+    private final Map<UUID, Integer> index = new ConcurrentHashMap<>();
+    private UUID[] uuids = new UUID[8];
+    private ServerPlayerEntity[] players = new ServerPlayerEntity[8];
+    private RegistryKey<World>[] worldKeys = newKeyArray(8);
+    private ServerWorld[] worlds = new ServerWorld[8];
+    private double[] xs = new double[8], ys = new double[8], zs = new double[8];
+    private float[] yaws = new float[8], pitches = new float[8];
+    private int size;
+    // Duration of the last enforcement pass, for tick profiling
+    private volatile long lastPassNanos;
+
+    @SuppressWarnings("unchecked")
+    private static RegistryKey<World>[] newKeyArray(int length) {
+        return (RegistryKey<World>[]) new RegistryKey[length];
+    }
+
+    // Freeze at the player's current position, or re-anchor if already frozen
+    void add(ServerPlayerEntity player) {
+        UUID uuid = player.getUuid();
+        Integer existing = index.get(uuid);
+        int i;
+        if (existing != null) {
+            i = existing;
+        } else {
+            if (size == uuids.length) grow();
+            i = size++;
+            index.put(uuid, i);
+        }
+        uuids[i] = uuid;
+        anchor(i, player);
+    }
+
+    boolean remove(UUID uuid) {
+        Integer removed = index.remove(uuid);
+        if (removed == null) return false;
+        int i = removed;
+        int last = --size;
+        if (i != last) {
+            uuids[i] = uuids[last];
+            players[i] = players[last];
+            worldKeys[i] = worldKeys[last];
+            worlds[i] = worlds[last];
+            xs[i] = xs[last]; ys[i] = ys[last]; zs[i] = zs[last];
+            yaws[i] = yaws[last]; pitches[i] = pitches[last];
+            index.put(uuids[i], i);
+        }
+        uuids[last] = null;
+        players[last] = null;
+        worldKeys[last] = null;
+        worlds[last] = null;
+        return true;
+    }
+
+    boolean contains(UUID uuid) {
+        return index.containsKey(uuid);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long lastPassNanos() {
+        return lastPassNanos;
+    }
+
+    // Snap every frozen player back to their anchor and cancel any momentum
+    void enforce() {
+        if (size == 0) {
+            lastPassNanos = 0L;
+            return;
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            ServerPlayerEntity p = players[i];
+            if (p.isRemoved()) {
+                // Respawning replaces the entity; follow the new one if the player is still here
+                ServerPlayerEntity current = p.getServer() != null ? p.getServer().getPlayerManager().getPlayer(uuids[i]) : null;
+                if (current == null || current == p) continue;
+                players[i] = p = current;
+            }
+            boolean wrongWorld = p.getServerWorld().getRegistryKey() != worldKeys[i];
+            double dx = p.getX() - xs[i];
+            double dy = p.getY() - ys[i];
+            double dz = p.getZ() - zs[i];
+            if (wrongWorld || dx * dx + dy * dy + dz * dz > DRIFT_SQUARED) {
+                try {
+                    p.teleport(worlds[i], xs[i], ys[i], zs[i], Set.of(), yaws[i], pitches[i], true);
+                } catch (Throwable t) {
+                    // Fallback: set position directly
+                    p.updatePosition(xs[i], ys[i], zs[i]);
+                }
+            }
+            // Zero out velocity and fall distance so they can't drift
+            p.setVelocity(0, 0, 0);
+            p.fallDistance = 0.0F;
+        }
+        lastPassNanos = System.nanoTime() - started;
+    }
+
+    private void anchor(int i, ServerPlayerEntity player) {
+        ServerWorld world = player.getServerWorld();
+        players[i] = player;
+        worlds[i] = world;
+        worldKeys[i] = world.getRegistryKey();
+        xs[i] = player.getX(); ys[i] = player.getY(); zs[i] = player.getZ();
+        yaws[i] = player.getYaw(); pitches[i] = player.getPitch();
+    }
+
+    private void grow() {
+        int capacity = uuids.length * 2;
+        uuids = Arrays.copyOf(uuids, capacity);
+        players = Arrays.copyOf(players, capacity);
+        worldKeys = Arrays.copyOf(worldKeys, capacity);
+        worlds = Arrays.copyOf(worlds, capacity);
+        xs = Arrays.copyOf(xs, capacity); ys = Arrays.copyOf(ys, capacity); zs = Arrays.copyOf(zs, capacity);
+        yaws = Arrays.copyOf(yaws, capacity); pitches = Arrays.copyOf(pitches, capacity);
+    }
+}
@@ -0,0 +1,68 @@
+package dev.synm.player;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide table of every item type seen in an inventory, each mapped to
+ * a small int and its default display name. Inventories store these ints
+ * instead of strings, so a stack of dirt is one shared entry no matter how
+ * many players carry it. Keyed on the item id alone, so the table is bounded
+ * by the item registry; custom (anvil) names are kept per slot and sent
+ * inline instead. Ids are assigned in order of first sight and never
+ * change while the server runs, which lets clients fetch the table
+ * incrementally from /api/items; they are not stable across restarts and
+ * are not persisted.
+ */
+public final class ItemDictionary {
+    public static final int EMPTY = 0;
+    private static final ItemDictionary SHARED = new ItemDictionary();
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] itemIds = new String[256];
+    private volatile String[] displayNames = new String[256];
+    private volatile int size;
+
+    private ItemDictionary() {
+        intern("air", "Empty");
+    }
+
+    public static ItemDictionary shared() {
+        return SHARED;
+    }
+
+    // The first default name seen for an item id is kept
+    int intern(String itemId, String displayName) {
+        Integer id = ids.get(itemId);
+        if (id != null) return id;
+        synchronized (this) {
+            id = ids.get(itemId);
+            if (id != null) return id;
+            int next = size;
+            if (next == itemIds.length) {
+                itemIds = Arrays.copyOf(itemIds, next * 2);
+                displayNames = Arrays.copyOf(displayNames, next * 2);
+            }
+            itemIds[next] = itemId;
+            displayNames[next] = displayName;
+            // Publishing size last makes the new entry visible to readers that check it
+            size = next + 1;
+            ids.put(itemId, next);
+            return next;
+        }
+    }
+
+    public String itemId(int id) {
+        return itemIds[id];
+    }
+
+    public String displayName(int id) {
+        return displayNames[id];
+    }
+
+    // Number of entries; also serves as the table's version since it only grows
+    public int size() {
+        return size;
+    }
+}
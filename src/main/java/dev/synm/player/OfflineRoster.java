@@ -0,0 +1,364 @@
+package dev.synm.player;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Last-known state of every offline player, persisted across restarts.
+ *
+ * The roster file is append-only: each leave appends a record and the newest
+ * record per UUID wins. Startup only reads the small summary section of each
+ * record (stats, position, playtime) and skips the inventory, which is faulted
+ * in on demand and kept in a bounded LRU. The file is compacted once stale
+ * records make up more than half of it.
+ *
+ * Record: payloadLength(4) crc32(4) summaryLength(4) summary inventory
+ */
+class OfflineRoster {
+    private static final long COMPACT_MIN_BYTES = 1 << 20;
+    // Far above any real inventory; a larger length can only be corruption
+    private static final int MAX_RECORD_BYTES = 16 << 20;
+
+    private final Path file;
+    private final Map<UUID, Entry> index = new ConcurrentHashMap<>();
+    // Records handed to the writer but not yet on disk
+    private final Map<UUID, PlayerInfo> pending = new ConcurrentHashMap<>();
+    private final Map<UUID, PlayerInfo> resident;
+
+    private FileChannel channel;
+    private ExecutorService writer;
+    // Bytes of the newest record per indexed player; the rest of the file is garbage
+    private final AtomicLong liveBytes = new AtomicLong();
+    private volatile boolean closed = true;
+    // Set once close() has forced and closed the channel; later writes are dropped, not reopened
+    private boolean released;
+
+    OfflineRoster(Path file, int residentLimit) {
+        this.file = file;
+        this.resident = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, PlayerInfo> eldest) {
+                return size() > residentLimit;
+            }
+        });
+    }
+
+    // Read the summary index; inventories stay on disk. Called once at startup.
+    synchronized void load() {
+        if (!Files.exists(file)) return;
+        long offset = 0;
+        String damage = null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            long size = Files.size(file);
+            byte[] skip = new byte[8192];
+            CRC32 crc = new CRC32();
+            while (offset < size) {
+                // Bounds are checked before anything is allocated; the first bad record ends the file
+                if (size - offset < 12) { damage = "incomplete header"; break; }
+                int payloadLength = in.readInt();
+                int expectedCrc = in.readInt();
+                int summaryLength = in.readInt();
+                if (payloadLength < 4 || payloadLength > MAX_RECORD_BYTES || payloadLength > size - offset - 8) {
+                    damage = "bad length " + payloadLength;
+                    break;
+                }
+                if (summaryLength < 0 || summaryLength > payloadLength - 4) {
+                    damage = "bad summary length " + summaryLength;
+                    break;
+                }
+                byte[] summary = new byte[summaryLength];
+                in.readFully(summary);
+                crc.reset();
+                crc.update(ByteBuffer.allocate(4).putInt(0, summaryLength).array());
+                crc.update(summary);
+                // Stream the inventory through the checksum without keeping it
+                for (int left = payloadLength - 4 - summaryLength; left > 0; ) {
+                    int n = Math.min(left, skip.length);
+                    in.readFully(skip, 0, n);
+                    crc.update(skip, 0, n);
+                    left -= n;
+                }
+                if ((int) crc.getValue() != expectedCrc) { damage = "checksum mismatch"; break; }
+                PlayerInfo info;
+                try {
+                    info = PlayerInfo.readSummary(new DataInputStream(new ByteArrayInputStream(summary)));
+                } catch (IOException | RuntimeException e) {
+                    damage = "unreadable summary";
+                    break;
+                }
+                int recordLength = 8 + payloadLength;
+                Entry previous = index.put(info.getUuid(), new Entry(info, offset, recordLength));
+                if (previous != null) liveBytes.addAndGet(-previous.length);
+                liveBytes.addAndGet(recordLength);
+                offset += recordLength;
+            }
+        } catch (EOFException e) {
+            // File shrank underneath us; whatever follows the last good record is gone anyway
+            damage = "unexpected end of file";
+        } catch (IOException e) {
+            dev.synm.SynM.LOGGER.error("Failed to read offline roster {}", file, e);
+        }
+        if (damage != null) {
+            // Torn or corrupt tail, typically from a crash mid-append
+            dev.synm.SynM.LOGGER.warn("Truncating offline roster {} at offset {}: {}", file, offset, damage);
+            try (FileChannel c = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                c.truncate(offset);
+            } catch (IOException e) {
+                dev.synm.SynM.LOGGER.error("Failed to truncate {}", file, e);
+            }
+        }
+        dev.synm.SynM.LOGGER.info("Indexed {} offline players from {}", index.size(), file);
+    }
+
+    synchronized void open() {
+        if (!closed) return;
+        writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "SynM-RosterWriter");
+            t.setDaemon(true);
+            return t;
+        });
+        released = false;
+        closed = false;
+    }
+
+    // Summaries (no inventory) of every offline player
+    Collection<Entry> entries() {
+        return index.values();
+    }
+
+    Entry entry(UUID uuid) {
+        return index.get(uuid);
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    // Full record including inventory; faults it in from disk on a miss
+    PlayerInfo get(UUID uuid) {
+        Entry entry = index.get(uuid);
+        if (entry == null) return null;
+        PlayerInfo info = resident.get(uuid);
+        if (info != null) return info;
+        info = pending.get(uuid);
+        if (info != null) return info;
+        info = read(entry);
+        if (info != null) resident.put(uuid, info);
+        return info;
+    }
+
+    // Store a player that just went offline; the append happens on the writer thread
+    void put(PlayerInfo info) {
+        UUID uuid = info.getUuid();
+        synchronized (this) {
+            if (released) {
+                dev.synm.SynM.LOGGER.warn("Dropping offline record for {} after the roster was closed", uuid);
+                return;
+            }
+        }
+        Entry previous = index.get(uuid);
+        // Keep pointing at the previous on-disk record until the new one is written
+        index.put(uuid, previous != null
+            ? new Entry(info.summaryCopy(), previous.offset, previous.length)
+            : new Entry(info.summaryCopy(), -1L, 0));
+        resident.put(uuid, info);
+        pending.put(uuid, info);
+        submit(() -> append(info));
+    }
+
+    // Player came back online; returns the stored summary (if any) so playtime carries over
+    PlayerInfo remove(UUID uuid) {
+        resident.remove(uuid);
+        Entry entry = index.remove(uuid);
+        if (entry == null) return null;
+        // Its record is garbage now; a later append for this uuid counts it again
+        liveBytes.addAndGet(-entry.length);
+        return entry.summary;
+    }
+
+    private void submit(Runnable task) {
+        ExecutorService executor = writer;
+        if (!closed && executor != null) {
+            try {
+                executor.execute(task);
+                return;
+            } catch (RejectedExecutionException ignored) {
+                // Closed concurrently; write inline below
+            }
+        }
+        task.run();
+    }
+
+    private synchronized void append(PlayerInfo info) {
+        try {
+            ByteArrayOutputStream summary = new ByteArrayOutputStream(160);
+            info.writeSummary(new DataOutputStream(summary));
+            ByteArrayOutputStream inventory = new ByteArrayOutputStream(1024);
+            info.writeInventory(new DataOutputStream(inventory));
+
+            int payloadLength = 4 + summary.size() + inventory.size();
+            ByteBuffer record = ByteBuffer.allocate(8 + payloadLength);
+            record.putInt(payloadLength).putInt(0).putInt(summary.size())
+                .put(summary.toByteArray()).put(inventory.toByteArray());
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), 8, payloadLength);
+            record.putInt(4, (int) crc.getValue());
+            record.flip();
+
+            FileChannel out = channel();
+            long offset = out.size();
+            while (record.hasRemaining()) out.write(record, offset + record.position());
+
+            UUID uuid = info.getUuid();
+            int length = 8 + payloadLength;
+            index.computeIfPresent(uuid, (k, current) -> {
+                liveBytes.addAndGet(length - current.length);
+                return new Entry(current.summary, offset, length);
+            });
+            pending.remove(uuid, info);
+
+            if (out.size() > COMPACT_MIN_BYTES && out.size() > liveBytes.get() * 2) compact();
+        } catch (IOException e) {
+            dev.synm.SynM.LOGGER.error("Failed to write offline roster record", e);
+        }
+    }
+
+    private synchronized PlayerInfo read(Entry entry) {
+        if (entry.offset < 0) return null;
+        try {
+            ByteBuffer record = ByteBuffer.allocate(entry.length);
+            FileChannel in = channel();
+            while (record.hasRemaining()) {
+                if (in.read(record, entry.offset + record.position()) < 0) throw new EOFException();
+            }
+            byte[] bytes = record.array();
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 8, entry.length - 8);
+            if (record.getInt(4) != (int) crc.getValue()) {
+                dev.synm.SynM.LOGGER.warn("Corrupt offline roster record for {}", entry.summary.getUuid());
+                return null;
+            }
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(bytes, 12, entry.length - 12));
+            PlayerInfo info = PlayerInfo.readSummary(data);
+            info.readInventory(data);
+            return info;
+        } catch (IOException e) {
+            dev.synm.SynM.LOGGER.error("Failed to read offline roster record", e);
+            return null;
+        }
+    }
+
+    // Rewrite the file with only the newest record per player
+    private synchronized void compact() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<UUID, long[]> moved = new HashMap<>();
+        FileChannel in = channel();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            for (Map.Entry<UUID, Entry> e : index.entrySet()) {
+                Entry entry = e.getValue();
+                if (entry.offset < 0) continue;
+                long copied = 0;
+                while (copied < entry.length) {
+                    copied += in.transferTo(entry.offset + copied, entry.length - copied, out);
+                }
+                moved.put(e.getKey(), new long[] { entry.offset, position, entry.length });
+                position += entry.length;
+            }
+            out.force(true);
+        }
+        in.close();
+        channel = null;
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        long live = 0;
+        for (Map.Entry<UUID, long[]> e : moved.entrySet()) {
+            long[] m = e.getValue();
+            // Re-point entries at their new offset; a concurrent put() keeps the summary but not the offset
+            Entry entry = index.computeIfPresent(e.getKey(), (k, current) ->
+                current.offset == m[0] ? new Entry(current.summary, m[1], current.length) : current);
+            // Players who came back online during the copy are no longer live
+            if (entry != null) live += entry.length;
+        }
+        liveBytes.set(live);
+        dev.synm.SynM.LOGGER.info("Compacted offline roster to {} records", moved.size());
+    }
+
+    private FileChannel channel() throws IOException {
+        if (released) throw new ClosedChannelException();
+        if (channel == null) {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return channel;
+    }
+
+    void close() {
+        ExecutorService executor;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            executor = writer;
+            writer = null;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                if (channel != null) {
+                    channel.force(false);
+                    channel.close();
+                }
+            } catch (IOException e) {
+                dev.synm.SynM.LOGGER.error("Failed to close offline roster", e);
+            }
+            channel = null;
+            released = true;
+        }
+    }
+
+    // Index entry: resident summary plus the newest on-disk record (-1 if none written yet)
+    static final class Entry {
+        final PlayerInfo summary;
+        final long offset;
+        final int length;
+
+        Entry(PlayerInfo summary, long offset, int length) {
+            this.summary = summary;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package dev.synm.player;
+
+/**
+ * Every key the player API can emit. JSON responses use {@link #jsonName()};
+ * the compact binary encoding uses {@link #id()} as the map key instead, so
+ * ids are part of the published schema: never renumber or reuse one, only
+ * append. Derived fields are left out of compact responses since clients can
+ * compute them.
+ */
+public enum PlayerField {
+    // Player
+    UUID(1, "uuid", "uuid"),
+    USERNAME(2, "username", "string"),
+    ONLINE(3, "online", "bool"),
+    LAST_SEEN(4, "lastSeen", "int"),
+    FIRST_JOINED(5, "firstJoined", "int"),
+    HEALTH(6, "health", "float"),
+    MAX_HEALTH(7, "maxHealth", "float"),
+    HEALTH_PERCENTAGE(8, "healthPercentage", "float", true),
+    FOOD_LEVEL(9, "foodLevel", "int"),
+    SATURATION_LEVEL(10, "saturationLevel", "float"),
+    GAME_MODE(11, "gameMode", "string"),
+    X(12, "x", "float"),
+    Y(13, "y", "float"),
+    Z(14, "z", "float"),
+    DIMENSION(15, "dimension", "string"),
+    EXPERIENCE_LEVEL(16, "experienceLevel", "int"),
+    EXPERIENCE_PROGRESS(17, "experienceProgress", "float"),
+    TOTAL_PLAY_TIME(18, "totalPlayTime", "int"),
+    TOTAL_PLAY_TIME_FORMATTED(19, "totalPlayTimeFormatted", "string", true),
+    INVENTORY(20, "inventory", "array<item>"),
+    HOTBAR(21, "hotbar", "array<item>"),
+    ARMOR(22, "armor", "array<item>"),
+    OFFHAND(23, "offhand", "item"),
+    NOTE(24, "note", "string"),
+    FROZEN(25, "frozen", "bool"),
+    GOD_MODE(26, "godMode", "bool"),
+    VANISHED(27, "vanished", "bool"),
+    CAN_FLY(28, "canFly", "bool"),
+    IS_FLYING(29, "isFlying", "bool"),
+    SESSIONS(30, "sessions", "array<session>"),
+    INVENTORY_VERSION(31, "inventoryVersion", "int"),
+    SESSION_COUNT(32, "sessionCount", "int"),
+    LAST_IP(33, "lastIp", "string"),
+
+    // Session
+    SESSION_START(40, "start", "int"),
+    SESSION_END(41, "end", "int"),
+    SESSION_IP(42, "ip", "string"),
+
+    // Inventory item
+    ITEM_SLOT(50, "slot", "int"),
+    // Names are derived: compact clients resolve ITEM against /api/items
+    ITEM_ID(51, "itemId", "string", true),
+    ITEM_DISPLAY_NAME(52, "displayName", "string", true),
+    ITEM_COUNT(53, "count", "int"),
+    ITEM_EMPTY(54, "isEmpty", "bool", true),
+    ITEM(55, "item", "int"),
+    // Anvil or command name; only present on renamed stacks, never derived
+    ITEM_CUSTOM_NAME(56, "customName", "string"),
+
+    // Response envelopes
+    ONLINE_PLAYERS(60, "online", "array<player>"),
+    OFFLINE_PLAYERS(61, "offline", "array<player>"),
+    PLAYERS(62, "players", "array<player>"),
+    NEXT_CURSOR(63, "nextCursor", "string"),
+    LIMIT(64, "limit", "int");
+
+    // Bumped when a field changes meaning; adding fields does not require it
+    public static final int SCHEMA_VERSION = 2;
+
+    private final int id;
+    private final String jsonName;
+    private final String type;
+    private final boolean derived;
+
+    PlayerField(int id, String jsonName, String type) {
+        this(id, jsonName, type, false);
+    }
+
+    PlayerField(int id, String jsonName, String type, boolean derived) {
+        this.id = id;
+        this.jsonName = jsonName;
+        this.type = type;
+        this.derived = derived;
+    }
+
+    public int id() { return id; }
+    public String jsonName() { return jsonName; }
+    public String type() { return type; }
+    public boolean derived() { return derived; }
+}
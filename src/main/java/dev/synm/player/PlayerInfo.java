@@ -3,16 +3,19 @@ package dev.synm.player;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.GameMode;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.inventory.Inventory;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
 
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.UUID;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Instant;
-import java.util.List;
-import java.util.ArrayList;
-
-import com.google.gson.JsonObject;
-import com.google.gson.JsonArray;
 
 public class PlayerInfo {
     private final UUID uuid;
@@ -33,11 +36,19 @@ public class PlayerInfo {
     private int experienceLevel;
     private float experienceProgress;
     
-    // Inventory data
-    private List<InventoryItem> inventory;
-    private List<InventoryItem> hotbar;
-    private List<InventoryItem> armor;
-    private InventoryItem offhand;
+    // Inventory data, indexed by slot: 0-8 hotbar, 9-35 main, 36-39 armor, 40 offhand.
+    // ItemDictionary id and count per slot. Replaced rather than modified on change, so
+    // snapshots can share them.
+    static final int SLOT_COUNT = 41;
+    private int[] slotItems;
+    private int[] slotCounts;
+    // Custom names per slot, same sharing rules; null while no slot holds a renamed stack
+    private String[] slotNames;
+    // Stack and item each slot was last read from; a slot is looked up again only when one changes
+    private ItemStack[] slotStacks;
+    private Item[] slotSourceItems;
+    // Bumped whenever any slot's visible content changes
+    private long inventoryVersion;
     
     // Keep reference to online player
     private ServerPlayerEntity player;
@@ -54,6 +65,13 @@ public class PlayerInfo {
         updateFromPlayer(player);
     }
     
+    // Offline record restored from the roster file
+    private PlayerInfo(UUID uuid, String username) {
+        this.uuid = uuid;
+        this.username = username;
+        this.online = false;
+    }
+    
     public void updateFromPlayer(ServerPlayerEntity player) {
         this.health = player.getHealth();
         this.maxHealth = player.getMaxHealth();
@@ -69,129 +87,50 @@ public class PlayerInfo {
         this.dimensionName = player.getServerWorld().getRegistryKey().getValue().toString();
         this.experienceLevel = player.experienceLevel;
         this.experienceProgress = player.experienceProgress;
-        this.lastSeen = Instant.now().toEpochMilli();
         
         // Update inventory
         updateInventory(player);
     }
     
     private void updateInventory(ServerPlayerEntity player) {
-        // Main inventory (slots 9-35)
-        this.inventory = new ArrayList<>();
-        for (int i = 9; i < 36; i++) {
-            ItemStack stack = player.getInventory().getStack(i);
-            this.inventory.add(new InventoryItem(stack, i));
-        }
-        
-        // Hotbar (slots 0-8)
-        this.hotbar = new ArrayList<>();
-        for (int i = 0; i < 9; i++) {
-            ItemStack stack = player.getInventory().getStack(i);
-            this.hotbar.add(new InventoryItem(stack, i));
+        if (slotStacks == null) {
+            slotStacks = new ItemStack[SLOT_COUNT];
+            slotSourceItems = new Item[SLOT_COUNT];
         }
-        
-        // Armor (slots 36-39)
-        this.armor = new ArrayList<>();
-        for (int i = 36; i < 40; i++) {
+        ItemDictionary dictionary = ItemDictionary.shared();
+        int[] items = null;
+        int[] counts = null;
+        String[] names = null;
+        for (int i = 0; i < SLOT_COUNT; i++) {
             ItemStack stack = player.getInventory().getStack(i);
-            this.armor.add(new InventoryItem(stack, i));
-        }
-        
-        // Offhand (slot 40)
-        ItemStack offhandStack = player.getInventory().getStack(40);
-        this.offhand = new InventoryItem(offhandStack, 40);
-    }
-    
-    public JsonObject toJson() {
-        JsonObject json = new JsonObject();
-        json.addProperty("uuid", uuid.toString());
-        json.addProperty("username", username);
-        json.addProperty("online", online);
-        json.addProperty("lastSeen", lastSeen);
-        json.addProperty("firstJoined", firstJoined);
-        json.addProperty("health", health);
-        json.addProperty("maxHealth", maxHealth);
-        json.addProperty("foodLevel", foodLevel);
-        json.addProperty("saturationLevel", saturationLevel);
-        json.addProperty("gameMode", gameMode != null ? gameMode.getName() : "unknown");
-        json.addProperty("x", x);
-        json.addProperty("y", y);
-        json.addProperty("z", z);
-        json.addProperty("dimension", dimensionName);
-        json.addProperty("experienceLevel", experienceLevel);
-        json.addProperty("experienceProgress", experienceProgress);
-        
-        // Add playtime data
-        json.addProperty("totalPlayTime", totalPlayTime);
-        json.addProperty("totalPlayTimeFormatted", formatPlayTime(totalPlayTime));
-        
-        // Calculate health percentage
-        double healthPercentage = maxHealth > 0 ? (health / maxHealth) * 100 : 0;
-        json.addProperty("healthPercentage", healthPercentage);
-        
-        // Add inventory data
-        if (inventory != null) {
-            JsonArray inventoryArray = new JsonArray();
-            for (InventoryItem item : inventory) {
-                inventoryArray.add(item.toJson());
-            }
-            json.add("inventory", inventoryArray);
-        }
-        
-        if (hotbar != null) {
-            JsonArray hotbarArray = new JsonArray();
-            for (InventoryItem item : hotbar) {
-                hotbarArray.add(item.toJson());
-            }
-            json.add("hotbar", hotbarArray);
-        }
-        
-        if (armor != null) {
-            JsonArray armorArray = new JsonArray();
-            for (InventoryItem item : armor) {
-                armorArray.add(item.toJson());
+            // Stacks are mutable, so same identity alone does not mean same content
+            if (slotItems != null && slotStacks[i] == stack && slotSourceItems[i] == stack.getItem()
+                    && slotCounts[i] == stack.getCount()) {
+                continue;
             }
-            json.add("armor", armorArray);
-        }
-        
-        if (offhand != null) {
-            json.add("offhand", offhand.toJson());
-        }
-        
-        return json;
-    }
-    
-    // Inner class for inventory items
-    private static class InventoryItem {
-        private final String itemId;
-        private final String displayName;
-        private final int count;
-        private final int slot;
-        private final boolean isEmpty;
-        
-        public InventoryItem(ItemStack stack, int slot) {
-            this.slot = slot;
-            if (stack.isEmpty()) {
-                this.isEmpty = true;
-                this.itemId = "air";
-                this.displayName = "Empty";
-                this.count = 0;
-            } else {
-                this.isEmpty = false;
-                this.itemId = stack.getItem().toString();
-                this.displayName = stack.getName().getString();
-                this.count = stack.getCount();
+            slotStacks[i] = stack;
+            slotSourceItems[i] = stack.getItem();
+            int id = stack.isEmpty() ? ItemDictionary.EMPTY
+                : dictionary.intern(stack.getItem().toString(), stack.getItem().getName().getString());
+            int count = stack.isEmpty() ? 0 : stack.getCount();
+            String name = stack.isEmpty() || stack.getCustomName() == null ? null : stack.getName().getString();
+            if (slotItems == null || slotItems[i] != id || slotCounts[i] != count || !Objects.equals(nameAt(slotNames, i), name)) {
+                if (items == null) {
+                    items = slotItems != null ? slotItems.clone() : new int[SLOT_COUNT];
+                    counts = slotCounts != null ? slotCounts.clone() : new int[SLOT_COUNT];
+                    names = slotNames != null ? slotNames.clone() : null;
+                }
+                items[i] = id;
+                counts[i] = count;
+                if (name != null && names == null) names = new String[SLOT_COUNT];
+                if (names != null) names[i] = name;
             }
         }
-        
-        public JsonObject toJson() {
-            JsonObject json = new JsonObject();
-            json.addProperty("slot", slot);
-            json.addProperty("itemId", itemId);
-            json.addProperty("displayName", displayName);
-            json.addProperty("count", count);
-            json.addProperty("isEmpty", isEmpty);
-            return json;
+        if (items != null) {
+            slotItems = items;
+            slotCounts = counts;
+            slotNames = names != null && Arrays.stream(names).anyMatch(Objects::nonNull) ? names : null;
+            inventoryVersion++;
         }
     }
     
@@ -214,34 +153,156 @@ public class PlayerInfo {
     public float getExperienceProgress() { return experienceProgress; }
     public ServerPlayerEntity getPlayer() { return player; }
     public long getTotalPlayTime() { return totalPlayTime; }
+    // Null for summary records, which carry no inventory
+    int[] getSlotItems() { return slotItems; }
+    int[] getSlotCounts() { return slotCounts; }
+    String[] getSlotNames() { return slotNames; }
+
+    static String nameAt(String[] names, int slot) {
+        return names != null ? names[slot] : null;
+    }
+    long getInventoryVersion() { return inventoryVersion; }
     
     // Playtime methods
     public void addPlayTime(long milliseconds) {
         this.totalPlayTime += milliseconds;
     }
     
-    private String formatPlayTime(long milliseconds) {
-        long seconds = milliseconds / 1000;
-        long minutes = seconds / 60;
-        long hours = minutes / 60;
-        long days = hours / 24;
-        
-        if (days > 0) {
-            return String.format("%dd %dh %dm", days, hours % 24, minutes % 60);
-        } else if (hours > 0) {
-            return String.format("%dh %dm", hours, minutes % 60);
-        } else if (minutes > 0) {
-            return String.format("%dm %ds", minutes, seconds % 60);
-        } else {
-            return String.format("%ds", seconds);
-        }
-    }
-    
     // Setters
     public void setOnline(boolean online) { 
         this.online = online; 
         if (!online) {
             this.player = null;
+            // Don't pin the departed player's item stacks
+            this.slotStacks = null;
+            this.slotSourceItems = null;
+        }
+    }
+
+    // Keep first-join time and accumulated playtime from the stored record when a player rejoins
+    // Stamped on join (constructor) and leave only; stamping every refresh would make each
+    // snapshot differ and bump the roster version on every publish
+    void markSeen(long time) {
+        this.lastSeen = time;
+    }
+
+    void carryOver(PlayerInfo previous) {
+        this.firstJoined = previous.firstJoined;
+        this.totalPlayTime = previous.totalPlayTime;
+    }
+
+    // ===== Persistence for the offline roster =====
+
+    // Copy of the scalar fields only; what the roster keeps resident for every offline player
+    PlayerInfo summaryCopy() {
+        PlayerInfo copy = new PlayerInfo(uuid, username);
+        copy.lastSeen = lastSeen;
+        copy.firstJoined = firstJoined;
+        copy.totalPlayTime = totalPlayTime;
+        copy.health = health;
+        copy.maxHealth = maxHealth;
+        copy.foodLevel = foodLevel;
+        copy.saturationLevel = saturationLevel;
+        copy.gameMode = gameMode;
+        copy.x = x;
+        copy.y = y;
+        copy.z = z;
+        copy.dimensionName = dimensionName;
+        copy.experienceLevel = experienceLevel;
+        copy.experienceProgress = experienceProgress;
+        return copy;
+    }
+
+    void writeSummary(DataOutput out) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+        out.writeUTF(username);
+        out.writeLong(lastSeen);
+        out.writeLong(firstJoined);
+        out.writeLong(totalPlayTime);
+        out.writeDouble(health);
+        out.writeDouble(maxHealth);
+        out.writeInt(foodLevel);
+        out.writeFloat(saturationLevel);
+        out.writeByte(gameMode != null ? gameMode.getId() : -1);
+        out.writeDouble(x);
+        out.writeDouble(y);
+        out.writeDouble(z);
+        out.writeUTF(dimensionName != null ? dimensionName : "");
+        out.writeInt(experienceLevel);
+        out.writeFloat(experienceProgress);
+    }
+
+    static PlayerInfo readSummary(DataInput in) throws IOException {
+        UUID uuid = new UUID(in.readLong(), in.readLong());
+        PlayerInfo info = new PlayerInfo(uuid, in.readUTF());
+        info.lastSeen = in.readLong();
+        info.firstJoined = in.readLong();
+        info.totalPlayTime = in.readLong();
+        info.health = in.readDouble();
+        info.maxHealth = in.readDouble();
+        info.foodLevel = in.readInt();
+        info.saturationLevel = in.readFloat();
+        byte mode = in.readByte();
+        info.gameMode = mode >= 0 ? GameMode.byId(mode) : null;
+        info.x = in.readDouble();
+        info.y = in.readDouble();
+        info.z = in.readDouble();
+        info.dimensionName = in.readUTF();
+        info.experienceLevel = in.readInt();
+        info.experienceProgress = in.readFloat();
+        return info;
+    }
+
+    // Names are written out in full; dictionary ids only mean something within one run.
+    // A renamed stack stores its custom name in place of the default one.
+    void writeInventory(DataOutput out) throws IOException {
+        int[] items = slotItems;
+        int[] counts = slotCounts;
+        String[] names = slotNames;
+        if (items == null) {
+            out.writeShort(0);
+            return;
+        }
+        ItemDictionary dictionary = ItemDictionary.shared();
+        out.writeShort(SLOT_COUNT);
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            out.writeByte(i);
+            out.writeUTF(dictionary.itemId(items[i]));
+            String custom = nameAt(names, i);
+            out.writeUTF(custom != null ? custom : dictionary.displayName(items[i]));
+            out.writeInt(counts[i]);
+        }
+    }
+
+    void readInventory(DataInput in) throws IOException {
+        int count = in.readUnsignedShort();
+        if (count == 0) return;
+        ItemDictionary dictionary = ItemDictionary.shared();
+        int[] items = new int[SLOT_COUNT];
+        int[] counts = new int[SLOT_COUNT];
+        String[] names = null;
+        for (int i = 0; i < count; i++) {
+            int slot = in.readUnsignedByte();
+            String itemId = in.readUTF();
+            String displayName = in.readUTF();
+            int amount = in.readInt();
+            if (slot < SLOT_COUNT && amount > 0) {
+                // Anything other than the item's default name was a custom one
+                Identifier key = Identifier.tryParse(itemId);
+                Item item = key != null && Registries.ITEM.containsId(key) ? Registries.ITEM.get(key) : null;
+                String defaultName = item != null ? item.getName().getString() : displayName;
+                items[slot] = dictionary.intern(itemId, defaultName);
+                counts[slot] = amount;
+                if (!displayName.equals(defaultName)) {
+                    if (names == null) names = new String[SLOT_COUNT];
+                    names[slot] = displayName;
+                }
+            }
         }
+        this.slotItems = items;
+        this.slotCounts = counts;
+        this.slotNames = names;
+        inventoryVersion++;
     }
 }
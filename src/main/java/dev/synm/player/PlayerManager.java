@@ -7,6 +7,8 @@ import net.minecraft.world.GameMode;
 import net.minecraft.entity.effect.StatusEffectInstance;
 import net.minecraft.entity.effect.StatusEffects;
 import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.network.packet.s2c.play.PlayerListS2CPacket;
+import net.minecraft.network.packet.s2c.play.PlayerRemoveS2CPacket;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -17,24 +19,61 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
 import com.google.gson.annotations.SerializedName;
 
+import dev.synm.config.SynMConfig;
+import dev.synm.metrics.Metrics;
+
 public class PlayerManager {
     private final Map<UUID, PlayerInfo> players = new ConcurrentHashMap<>();
-    private final Map<UUID, PlayerInfo> offlinePlayers = new ConcurrentHashMap<>();
+    // Persisted last-known state of offline players; inventories are loaded on demand
+    private final OfflineRoster offlinePlayers;
     private final Map<UUID, String> playerNotes = new ConcurrentHashMap<>();
-    private final Map<UUID, Boolean> frozenPlayers = new ConcurrentHashMap<>();
-    // Store a freeze anchor to teleport players back each tick
-    private final Map<UUID, FrozenAnchor> frozenAnchors = new ConcurrentHashMap<>();
+    // Frozen players with the anchor they are teleported back to each tick
+    private final FrozenPlayers frozenPlayers = new FrozenPlayers();
     private final Map<UUID, Boolean> godModePlayers = new ConcurrentHashMap<>();
-    private final Map<UUID, Boolean> vanishedPlayers = new ConcurrentHashMap<>();
-    private final Map<UUID, Long> playTimeSessions = new ConcurrentHashMap<>();
-    private final Map<UUID, java.util.List<SessionRecord>> sessionHistory = new ConcurrentHashMap<>();
+    // Consulted by the entity tracker and outgoing player-list packets, so lookups must stay O(1)
+    private final Set<UUID> vanishedPlayers = ConcurrentHashMap.newKeySet();
+    // Operators at this level still see vanished players
+    private static final int VANISH_BYPASS_PERMISSION_LEVEL = 2;
+    private final SessionStore sessions = new SessionStore();
+    // Hourly/daily activity rollups for /api/analytics, fed by the same join/leave events
+    private final ActivityRollup activity = new ActivityRollup();
     private final Gson gson = new Gson();
     private final Path dataFile = Paths.get("synm_data.json");
+    // Notes and sessions are written off the server thread, coalescing bursts of changes
+    private final WriteBehindFile dataWriter;
+    // Session start/end events are appended here instead of being rewritten with the notes
+    private final SessionJournal sessionJournal;
+
+    // Roster snapshot published from the server thread for the web handlers
+    private final int snapshotIntervalTicks;
+    private int ticksSinceSnapshot;
+    private volatile boolean snapshotRequested = true;
+    // Offline players whose index entry is stale because they joined, left or got a new note
+    private final Set<UUID> offlineChanged = ConcurrentHashMap.newKeySet();
+    private volatile Roster roster;
+    // Username/dimension/gamemode indexes for list queries, maintained as snapshots are published
+    private final RosterIndex rosterIndex = new RosterIndex();
+    private final List<java.util.function.BiConsumer<Roster, Roster>> snapshotListeners = new java.util.concurrent.CopyOnWriteArrayList<>();
     
-    public PlayerManager() {
+    public PlayerManager(SynMConfig config) {
+        this.snapshotIntervalTicks = config.snapshotIntervalTicks;
+        this.dataWriter = new WriteBehindFile(dataFile, this::serializeData, config.saveDebounceMillis, Metrics.SAVE);
+        this.sessionJournal = new SessionJournal(Paths.get("synm_sessions.journal"), Paths.get("synm_sessions.dat"),
+            config.sessionJournalCompactRecords, sessions);
+        this.offlinePlayers = new OfflineRoster(Paths.get("synm_roster.dat"), config.offlineRosterCacheSize);
         loadData();
+        activity.seed(sessions, System.currentTimeMillis());
+        offlinePlayers.load();
+        Map<UUID, PlayerSnapshot> offline = new HashMap<>();
+        for (OfflineRoster.Entry entry : offlinePlayers.entries()) {
+            PlayerSnapshot snapshot = buildSnapshot(entry.summary, null);
+            offline.put(snapshot.getUuid(), snapshot);
+            rosterIndex.update(snapshot);
+        }
+        this.roster = new Roster(0L, 0L, Map.of(), Collections.unmodifiableMap(offline));
     }
     
     private void loadData() {
@@ -56,24 +95,20 @@ public class PlayerManager {
                     }
                 }
 
-                // Load session history
-                if (data.has("sessionHistory")) {
+                // Legacy session history kept inside synm_data.json; migrated to the journal below
+                if (data.has("sessionHistory") && !sessionJournal.hasSnapshot()) {
                     JsonObject hist = data.getAsJsonObject("sessionHistory");
                     for (String key : hist.keySet()) {
                         try {
                             UUID uuid = UUID.fromString(key);
                             JsonArray arr = hist.getAsJsonArray(key);
-                            java.util.List<SessionRecord> list = new ArrayList<>();
                             arr.forEach(el -> {
                                 JsonObject o = el.getAsJsonObject();
-                                SessionRecord r = new SessionRecord(
+                                sessions.add(uuid,
                                     o.get("start").getAsLong(),
                                     o.has("end") ? o.get("end").getAsLong() : 0L,
-                                    o.has("ip") ? o.get("ip").getAsString() : ""
-                                );
-                                list.add(r);
+                                    o.has("ip") ? o.get("ip").getAsString() : "");
                             });
-                            sessionHistory.put(uuid, list);
                         } catch (IllegalArgumentException e) {
                             // Skip invalid UUIDs
                         }
@@ -85,49 +120,68 @@ public class PlayerManager {
         } catch (Exception e) {
             dev.synm.SynM.LOGGER.error("Failed to load SynM data", e);
         }
+
+        boolean migrateLegacy = !sessions.isEmpty();
+        sessionJournal.load();
+        if (migrateLegacy) {
+            // One-time migration: the JSON history becomes the journal's first snapshot
+            sessionJournal.compact();
+            saveData();
+        }
     }
     
+    // Schedule a background save; safe to call on the server thread
     private void saveData() {
-        try {
-            JsonObject data = new JsonObject();
-            
-            // Save player notes
-            JsonObject notes = new JsonObject();
-            for (Map.Entry<UUID, String> entry : playerNotes.entrySet()) {
-                notes.addProperty(entry.getKey().toString(), entry.getValue());
-            }
-            data.add("playerNotes", notes);
-            
-            // Save session history
-            JsonObject hist = new JsonObject();
-            for (Map.Entry<UUID, java.util.List<SessionRecord>> entry : sessionHistory.entrySet()) {
-                JsonArray arr = new JsonArray();
-                for (SessionRecord r : entry.getValue()) {
-                    JsonObject o = new JsonObject();
-                    o.addProperty("start", r.start);
-                    if (r.end > 0) o.addProperty("end", r.end);
-                    if (r.ip != null) o.addProperty("ip", r.ip);
-                    arr.add(o);
-                }
-                hist.add(entry.getKey().toString(), arr);
-            }
-            data.add("sessionHistory", hist);
+        dataWriter.markDirty();
+    }
+
+    // Called when a server starts; the manager outlives integrated servers, so this can run more than once
+    public void startup() {
+        dataWriter.open();
+        sessionJournal.open();
+        offlinePlayers.open();
+    }
+
+    // Flush pending changes to disk; called when the server is stopping. Vanilla disconnects the
+    // remaining players only after this, so their leave is recorded here while the stores are open;
+    // the late disconnect then finds nothing left to write.
+    public void shutdown() {
+        long end = System.currentTimeMillis();
+        for (PlayerInfo info : new ArrayList<>(players.values())) {
+            ServerPlayerEntity player = info.getPlayer();
+            if (player != null) recordLeave(player, end);
+        }
+        dataWriter.close();
+        sessionJournal.close();
+        offlinePlayers.close();
+    }
+
+    // Runs on the writer thread
+    private String serializeData() {
+        JsonObject data = new JsonObject();
             
-            Files.writeString(dataFile, gson.toJson(data));
-        } catch (Exception e) {
-            dev.synm.SynM.LOGGER.error("Failed to save SynM data", e);
+        // Save player notes
+        JsonObject notes = new JsonObject();
+        for (Map.Entry<UUID, String> entry : playerNotes.entrySet()) {
+            notes.addProperty(entry.getKey().toString(), entry.getValue());
         }
+        data.add("playerNotes", notes);
+        
+        return gson.toJson(data);
     }
     
     public void onPlayerJoin(ServerPlayerEntity player) {
         UUID uuid = player.getUuid();
         PlayerInfo info = new PlayerInfo(player);
+        // Move from offline to online, keeping first-join time and playtime from the stored record
+        PlayerInfo previous = offlinePlayers.remove(uuid);
+        if (previous != null) {
+            info.carryOver(previous);
+            offlineChanged.add(uuid);
+        }
         players.put(uuid, info);
         
-        // Track playtime session start
-        playTimeSessions.put(uuid, System.currentTimeMillis());
-        
-        // Add session record (start)
+        // Open a session; its start also drives the playtime added on leave
         String ip = "";
         try {
             // Best-effort IP fetch across mappings
@@ -135,59 +189,64 @@ public class PlayerManager {
         } catch (Throwable t) {
             // leave empty if not available
         }
-        sessionHistory.computeIfAbsent(uuid, k -> new ArrayList<>())
-            .add(new SessionRecord(System.currentTimeMillis(), 0L, ip));
-        saveData();
-        
-        // Move from offline to online if was offline
-        offlinePlayers.remove(uuid);
+        long start = System.currentTimeMillis();
+        if (sessions.start(uuid, start, ip)) {
+            sessionJournal.appendStart(uuid, start, ip);
+        }
+        activity.join(uuid, start, sessions.get(uuid).firstStart());
+        requestSnapshot();
         
         dev.synm.SynM.LOGGER.info("Player {} joined the server", player.getName().getString());
     }
     
     public void onPlayerLeave(ServerPlayerEntity player) {
+        recordLeave(player, System.currentTimeMillis());
+        dev.synm.SynM.LOGGER.info("Player {} left the server", player.getName().getString());
+    }
+
+    // Does nothing for a player whose leave was already recorded at shutdown
+    private void recordLeave(ServerPlayerEntity player, long end) {
         UUID uuid = player.getUuid();
         PlayerInfo info = players.remove(uuid);
         
-        // Calculate and add session playtime
-        Long sessionStart = playTimeSessions.remove(uuid);
-        if (sessionStart != null && info != null) {
-            long sessionTime = System.currentTimeMillis() - sessionStart;
-            info.addPlayTime(sessionTime);
+        // Close the open session and add its playtime
+        long sessionStart = sessions.end(uuid, end);
+        if (sessionStart >= 0) {
+            sessionJournal.appendEnd(uuid, end);
+            if (info != null) info.addPlayTime(end - sessionStart);
         }
-        
-        if (info != null) {
-            info.updateFromPlayer(player);
-            info.setOnline(false);
-            offlinePlayers.put(uuid, info);
-        }
-        
-        // Close last session record
-        java.util.List<SessionRecord> list = sessionHistory.get(uuid);
-        if (list != null && !list.isEmpty()) {
-            SessionRecord last = list.get(list.size() - 1);
-            if (last.end == 0L) last.end = System.currentTimeMillis();
-        }
-        saveData();
+        activity.leave(uuid, end);
         
         // Clean up temporary states
         frozenPlayers.remove(uuid);
         godModePlayers.remove(uuid);
         vanishedPlayers.remove(uuid);
-        
-        dev.synm.SynM.LOGGER.info("Player {} left the server", player.getName().getString());
+
+        if (info != null) {
+            info.updateFromPlayer(player);
+            info.markSeen(end);
+            info.setOnline(false);
+            offlinePlayers.put(info);
+            offlineChanged.add(uuid);
+        }
+        requestSnapshot();
     }
     
     public Map<UUID, PlayerInfo> getOnlinePlayers() {
         return new HashMap<>(players);
     }
     
+    // Offline players without inventory; use getPlayer(uuid) for the full record
     public Map<UUID, PlayerInfo> getOfflinePlayers() {
-        return new HashMap<>(offlinePlayers);
+        Map<UUID, PlayerInfo> offline = new HashMap<>();
+        for (OfflineRoster.Entry entry : offlinePlayers.entries()) {
+            offline.put(entry.summary.getUuid(), entry.summary);
+        }
+        return offline;
     }
     
     public Map<UUID, PlayerInfo> getAllPlayers() {
-        Map<UUID, PlayerInfo> all = new HashMap<>(offlinePlayers);
+        Map<UUID, PlayerInfo> all = getOfflinePlayers();
         all.putAll(players);
         return all;
     }
@@ -243,6 +302,7 @@ public class PlayerManager {
         if (info != null && info.getPlayer() != null) {
             ServerPlayerEntity player = info.getPlayer();
             // Change the player's game mode
+            GameMode previous = player.interactionManager.getGameMode();
             player.changeGameMode(gameMode);
             dev.synm.SynM.LOGGER.info("Set player {} to {} mode",
                 player.getName().getString(), gameMode.getName());
@@ -250,7 +310,7 @@ public class PlayerManager {
             // Optional external logger
             var logger = dev.synm.SynM.getPlayerLogger();
             if (logger != null) {
-                logger.logGameModeChange(player, "unknown", gameMode.getName(), "Admin change");
+                logger.logGameModeChange(player, previous.getName(), gameMode.getName(), "Admin change");
             }
             return true;
         }
@@ -337,13 +397,11 @@ public class PlayerManager {
         if (info != null && info.getPlayer() != null) {
             ServerPlayerEntity player = info.getPlayer();
             if (freeze) {
-                frozenPlayers.put(uuid, true);
-                // Store current position for teleporting back if they move
-                frozenAnchors.put(uuid, FrozenAnchor.from(player));
+                // Anchor at the current position for teleporting back if they move
+                frozenPlayers.add(player);
                 player.sendMessage(Text.literal("§cYou have been frozen by an administrator!"), false);
             } else {
                 frozenPlayers.remove(uuid);
-                frozenAnchors.remove(uuid);
                 player.sendMessage(Text.literal("§aYou have been unfrozen!"), false);
             }
             dev.synm.SynM.LOGGER.info("{} player {}", freeze ? "Froze" : "Unfroze", player.getName().getString());
@@ -353,58 +411,27 @@ public class PlayerManager {
     }
     
     public boolean isPlayerFrozen(UUID uuid) {
-        return frozenPlayers.getOrDefault(uuid, false);
+        return frozenPlayers.contains(uuid);
     }
     
-    // Method to check if player movement should be prevented
+    // Nanoseconds the last tick spent enforcing freezes
+    public long getFreezeTickNanos() {
+        return frozenPlayers.lastPassNanos();
+    }
+
+    // Checked by ServerPlayNetworkHandlerMixin for every position update a client sends
     public boolean shouldPreventMovement(ServerPlayerEntity player) {
         return isPlayerFrozen(player.getUuid());
     }
 
     // Called every server tick from SynM to enforce freeze and any periodic state
     public void onServerTick(net.minecraft.server.MinecraftServer server) {
-        if (frozenPlayers.isEmpty()) return;
-        for (Map.Entry<UUID, Boolean> entry : frozenPlayers.entrySet()) {
-            if (!Boolean.TRUE.equals(entry.getValue())) continue;
-            UUID uuid = entry.getKey();
-            PlayerInfo info = players.get(uuid);
-            if (info == null) continue;
-            ServerPlayerEntity p = info.getPlayer();
-            if (p == null) continue;
-            FrozenAnchor anchor = frozenAnchors.computeIfAbsent(uuid, k -> FrozenAnchor.from(p));
-            // If player changed dimension or moved, snap back
-            boolean wrongDim = anchor.dimensionKey != null && !p.getServerWorld().getRegistryKey().getValue().toString().equals(anchor.dimensionKey);
-            double dx = p.getX() - anchor.x;
-            double dy = p.getY() - anchor.y;
-            double dz = p.getZ() - anchor.z;
-            if (wrongDim || (dx*dx + dy*dy + dz*dz) > 0.001) {
-                try {
-                    p.teleport(p.getServerWorld(), anchor.x, anchor.y, anchor.z, java.util.Set.of(), anchor.yaw, anchor.pitch, true);
-                } catch (Throwable t) {
-                    // Fallback: set position directly
-                    p.updatePosition(anchor.x, anchor.y, anchor.z);
-                }
-            }
-            // Zero out velocity and fall distance so they can't drift
-            try { p.setVelocity(0, 0, 0); } catch (Throwable ignored) {}
-            p.fallDistance = 0.0F;
+        frozenPlayers.enforce();
+        if (snapshotRequested || ++ticksSinceSnapshot >= snapshotIntervalTicks) {
+            publishSnapshot();
         }
     }
 
-    // Anchor record for freeze
-    private static class FrozenAnchor {
-        final String dimensionKey;
-        final double x, y, z;
-        final float yaw, pitch;
-        FrozenAnchor(String dimensionKey, double x, double y, double z, float yaw, float pitch) {
-            this.dimensionKey = dimensionKey; this.x = x; this.y = y; this.z = z; this.yaw = yaw; this.pitch = pitch;
-        }
-        static FrozenAnchor from(ServerPlayerEntity p) {
-            String dim = p.getServerWorld().getRegistryKey().getValue().toString();
-            return new FrozenAnchor(dim, p.getX(), p.getY(), p.getZ(), p.getYaw(), p.getPitch());
-        }
-    }
-    
     // God Mode Toggle
     public boolean toggleGodMode(UUID uuid) {
         PlayerInfo info = players.get(uuid);
@@ -433,6 +460,12 @@ public class PlayerManager {
     public boolean isPlayerInGodMode(UUID uuid) {
         return godModePlayers.getOrDefault(uuid, false);
     }
+
+    // Idempotent form for callers that know the state they want, e.g. a retried web action
+    public boolean setGodMode(UUID uuid, boolean enabled) {
+        if (onlineEntity(uuid) == null) return false;
+        return isPlayerInGodMode(uuid) == enabled || toggleGodMode(uuid);
+    }
     
     // Fly Mode Toggle
     public boolean toggleFlyMode(UUID uuid) {
@@ -462,15 +495,18 @@ public class PlayerManager {
         PlayerInfo info = players.get(uuid);
         if (info != null && info.getPlayer() != null) {
             ServerPlayerEntity player = info.getPlayer();
-            boolean isVanished = vanishedPlayers.getOrDefault(uuid, false);
+            boolean isVanished = vanishedPlayers.contains(uuid);
             
             if (isVanished) {
                 vanishedPlayers.remove(uuid);
-                // Make visible to all players - simplified approach
+                // Tab entry first: clients only spawn players they have list info for
+                sendToNonBypassing(player, PlayerListS2CPacket.entryFromPlayer(List.of(player)));
+                refreshTracking(player);
                 player.sendMessage(Text.literal("§aYou are now visible to other players!"), false);
             } else {
-                vanishedPlayers.put(uuid, true);
-                // Hide from all players - simplified approach
+                vanishedPlayers.add(uuid);
+                refreshTracking(player);
+                sendToNonBypassing(player, new PlayerRemoveS2CPacket(List.of(uuid)));
                 player.sendMessage(Text.literal("§cYou are now invisible to other players!"), false);
             }
             
@@ -482,7 +518,45 @@ public class PlayerManager {
     }
     
     public boolean isPlayerVanished(UUID uuid) {
-        return vanishedPlayers.getOrDefault(uuid, false);
+        return vanishedPlayers.contains(uuid);
+    }
+
+    public boolean setVanishMode(UUID uuid, boolean vanished) {
+        if (onlineEntity(uuid) == null) return false;
+        return isPlayerVanished(uuid) == vanished || toggleVanishMode(uuid);
+    }
+
+    public boolean setFlyMode(UUID uuid, boolean allowed) {
+        ServerPlayerEntity player = onlineEntity(uuid);
+        if (player == null) return false;
+        return player.getAbilities().allowFlying == allowed || toggleFlyMode(uuid);
+    }
+
+    private ServerPlayerEntity onlineEntity(UUID uuid) {
+        PlayerInfo info = players.get(uuid);
+        return info != null ? info.getPlayer() : null;
+    }
+
+    public boolean hasVanishedPlayers() {
+        return !vanishedPlayers.isEmpty();
+    }
+
+    // Whether viewer may see target in entity tracking and the player list
+    public boolean canSee(ServerPlayerEntity viewer, UUID target) {
+        if (!vanishedPlayers.contains(target)) return true;
+        return viewer.getUuid().equals(target) || viewer.hasPermissionLevel(VANISH_BYPASS_PERMISSION_LEVEL);
+    }
+
+    // Re-run tracking for the target against every viewer in its world; EntityTrackerMixin applies canSee
+    private void refreshTracking(ServerPlayerEntity target) {
+        target.getServerWorld().getChunkManager().chunkLoadingManager.updatePosition(target);
+    }
+
+    private void sendToNonBypassing(ServerPlayerEntity target, net.minecraft.network.packet.Packet<?> packet) {
+        for (ServerPlayerEntity viewer : target.getServer().getPlayerManager().getPlayerList()) {
+            if (viewer == target || viewer.hasPermissionLevel(VANISH_BYPASS_PERMISSION_LEVEL)) continue;
+            viewer.networkHandler.sendPacket(packet);
+        }
     }
     
     // Player Notes
@@ -492,6 +566,9 @@ public class PlayerManager {
         } else {
             playerNotes.put(uuid, note.trim());
         }
+        // Offline snapshots pick up the note on their next read; this only bumps the version
+        if (offlinePlayers.entry(uuid) != null) offlineChanged.add(uuid);
+        requestSnapshot();
         saveData();
         dev.synm.SynM.LOGGER.info("Updated note for player {}", uuid);
         return true;
@@ -502,46 +579,19 @@ public class PlayerManager {
     }
     
     // Enhanced JSON methods with new data
-    public String getPlayerJson(UUID uuid) {
-        PlayerInfo info = getPlayer(uuid);
-        if (info != null) {
-            if (info.isOnline() && info.getPlayer() != null) {
-                info.updateFromPlayer(info.getPlayer());
-            }
-            
-            JsonObject json = info.toJson();
-            
-            // Add additional data
-            json.addProperty("note", getPlayerNote(uuid));
-            json.addProperty("frozen", isPlayerFrozen(uuid));
-            json.addProperty("godMode", isPlayerInGodMode(uuid));
-            json.addProperty("vanished", isPlayerVanished(uuid));
-            
-            // Add flight status for online players
-            if (info.isOnline() && info.getPlayer() != null) {
-                json.addProperty("canFly", info.getPlayer().getAbilities().allowFlying);
-                json.addProperty("isFlying", info.getPlayer().getAbilities().flying);
-            }
-
-            // Add session history (last 10)
-            JsonArray sessions = new JsonArray();
-            java.util.List<SessionRecord> list = sessionHistory.get(uuid);
-            if (list != null) {
-                int start = Math.max(0, list.size() - 10);
-                for (int i = start; i < list.size(); i++) {
-                    SessionRecord r = list.get(i);
-                    JsonObject o = new JsonObject();
-                    o.addProperty("start", r.start);
-                    if (r.end > 0) o.addProperty("end", r.end);
-                    if (r.ip != null) o.addProperty("ip", r.ip);
-                    sessions.add(o);
-                }
-            }
-            json.add("sessions", sessions);
-            
-            return gson.toJson(json);
+    public void writePlayer(UUID uuid, RecordWriter out) throws IOException {
+        Roster current = roster;
+        PlayerSnapshot snapshot = current.online().get(uuid);
+        if (snapshot == null && current.offline().containsKey(uuid)) {
+            // The roster only keeps offline summaries; fault in the full record for the detail view
+            PlayerInfo full = offlinePlayers.get(uuid);
+            snapshot = full != null ? buildSnapshot(full, null) : current.offline().get(uuid);
+        }
+        if (snapshot != null) {
+            snapshot.writeDetail(out);
+        } else {
+            out.beginObject().endObject();
         }
-        return "{}";
     }
 
     // Broadcast helper
@@ -627,35 +677,255 @@ public class PlayerManager {
         }
     }
 
-    // Session record data
-    private static class SessionRecord {
-        long start;
-        long end;
-        String ip;
-        SessionRecord(long start, long end, String ip) {
-            this.start = start; this.end = end; this.ip = ip;
+    // Analytics over the last `days` days; with a player, the trend section covers just them
+    public void writeAnalytics(JsonWriter out, int days, UUID player) throws IOException {
+        activity.write(out, days, player, System.currentTimeMillis());
+    }
+
+    public void writePlayers(RecordWriter out) throws IOException {
+        writePlayers(roster, out);
+    }
+
+    // A specific published roster, e.g. the one an event stream announced by version
+    public void writePlayers(Roster current, RecordWriter out) throws IOException {
+        out.beginObject();
+        out.name(PlayerField.ONLINE_PLAYERS).beginArray();
+        for (PlayerSnapshot snapshot : current.online().values()) {
+            snapshot.write(out);
+        }
+        out.endArray();
+        out.name(PlayerField.OFFLINE_PLAYERS).beginArray();
+        for (PlayerSnapshot snapshot : current.offline().values()) {
+            snapshot.write(out);
         }
+        out.endArray();
+        out.endObject();
     }
-    
-    public String getPlayersJson() {
-        Map<String, Object> result = new HashMap<>();
-        
-        List<JsonObject> onlineList = new ArrayList<>();
+
+    // Filtered, sorted, cursor-paged list of slim player summaries
+    public void writeQuery(PlayerQuery query, RecordWriter out) throws IOException {
+        Roster current = roster;
+        List<PlayerSnapshot> page = new ArrayList<>(query.limit() + 1);
+        String cursor = query.cursor();
+
+        // Online-only listings sort the (small) online map instead of walking every name in the index
+        boolean byNameIndex = query.sort() == PlayerQuery.Sort.NAME && !Boolean.TRUE.equals(query.online())
+            && (query.prefix() != null || (query.dimension() == null && query.gameMode() == null));
+        if (byNameIndex) {
+            // Walk the sorted name index from the cursor; stops as soon as the page is full
+            NavigableMap<String, UUID> names = rosterIndex.byName(query.prefix());
+            if (cursor != null) {
+                names = query.descending() ? names.headMap(cursor, false) : names.tailMap(cursor, false);
+            }
+            if (query.descending()) names = names.descendingMap();
+            for (UUID uuid : names.values()) {
+                PlayerSnapshot snapshot = lookup(current, uuid);
+                if (snapshot != null && query.matches(snapshot)) {
+                    page.add(snapshot);
+                    if (page.size() > query.limit()) break;
+                }
+            }
+        } else {
+            // Start from the narrowest candidate set, then filter, sort and skip past the cursor
+            Collection<UUID> candidates = null;
+            if (query.dimension() != null) candidates = rosterIndex.inDimension(query.dimension());
+            if (query.gameMode() != null) {
+                Set<UUID> byMode = rosterIndex.inGameMode(query.gameMode());
+                if (candidates == null || byMode.size() < candidates.size()) candidates = byMode;
+            }
+            if (Boolean.TRUE.equals(query.online())
+                    && (candidates == null || current.online().size() < candidates.size())) {
+                candidates = current.online().keySet();
+            }
+            if (query.prefix() != null) {
+                Collection<UUID> byName = rosterIndex.byName(query.prefix()).values();
+                if (candidates == null) candidates = byName;
+            }
+            if (candidates == null && query.online() != null) {
+                candidates = current.offline().keySet();
+            }
+            List<PlayerSnapshot> matches = new ArrayList<>();
+            if (candidates == null) {
+                for (PlayerSnapshot s : current.online().values()) if (query.matches(s)) matches.add(s);
+                for (PlayerSnapshot s : current.offline().values()) if (query.matches(s)) matches.add(s);
+            } else {
+                for (UUID uuid : candidates) {
+                    PlayerSnapshot s = lookup(current, uuid);
+                    if (s != null && query.matches(s)) matches.add(s);
+                }
+            }
+            Comparator<PlayerSnapshot> order = sortOrder(query.sort());
+            if (query.descending()) order = order.reversed();
+            matches.sort(order);
+            SortPosition after = cursor != null ? SortPosition.parse(query.sort(), cursor) : null;
+            for (PlayerSnapshot s : matches) {
+                if (after != null) {
+                    int cmp = after.compareTo(query.sort(), s);
+                    if (query.descending() ? cmp <= 0 : cmp >= 0) continue;
+                }
+                page.add(s);
+                if (page.size() > query.limit()) break;
+            }
+        }
+
+        out.beginObject();
+        out.name(PlayerField.PLAYERS).beginArray();
+        int count = Math.min(page.size(), query.limit());
+        for (int i = 0; i < count; i++) {
+            page.get(i).writeSummary(out);
+        }
+        out.endArray();
+        if (page.size() > query.limit()) {
+            out.name(PlayerField.NEXT_CURSOR).value(PlayerQuery.encodeCursor(cursorKey(query.sort(), page.get(count - 1))));
+        } else {
+            out.name(PlayerField.NEXT_CURSOR).nullValue();
+        }
+        out.name(PlayerField.LIMIT).value(query.limit());
+        out.endObject();
+    }
+
+    private static PlayerSnapshot lookup(Roster roster, UUID uuid) {
+        PlayerSnapshot snapshot = roster.online().get(uuid);
+        return snapshot != null ? snapshot : roster.offline().get(uuid);
+    }
+
+    // Compares primitives and only falls back to the uuid on ties, so sorting allocates nothing per comparison
+    private static Comparator<PlayerSnapshot> sortOrder(PlayerQuery.Sort sort) {
+        Comparator<PlayerSnapshot> primary = sort == PlayerQuery.Sort.NAME
+            ? Comparator.comparing(PlayerManager::lowerName)
+            : Comparator.comparingLong(s -> sortValue(sort, s));
+        return primary.thenComparing(s -> s.getUuid().toString());
+    }
+
+    // Health uses its IEEE bits, which order like the value for the non-negative range it is clamped to
+    private static long sortValue(PlayerQuery.Sort sort, PlayerSnapshot s) {
+        return switch (sort) {
+            case LAST_SEEN -> s.getLastSeen();
+            case PLAYTIME -> s.getTotalPlayTime();
+            case HEALTH -> Double.doubleToLongBits(Math.max(0.0, s.getHealth()));
+            case NAME -> throw new IllegalArgumentException("Names have no numeric sort value");
+        };
+    }
+
+    private static String lowerName(PlayerSnapshot s) {
+        return s.getUsername() != null ? s.getUsername().toLowerCase() : "";
+    }
+
+    // Cursor for the last row of a page; names use the index key so both query paths share it
+    private static String cursorKey(PlayerQuery.Sort sort, PlayerSnapshot s) {
+        if (sort == PlayerQuery.Sort.NAME) return RosterIndex.nameKey(s.getUsername(), s.getUuid());
+        return Long.toString(sortValue(sort, s)) + '\0' + s.getUuid();
+    }
+
+    // A decoded cursor, parsed once per query and compared field by field against each row
+    private record SortPosition(String name, long value, String uuid) {
+        static SortPosition parse(PlayerQuery.Sort sort, String cursor) {
+            int split = cursor.lastIndexOf('\0');
+            if (split < 0) throw new IllegalArgumentException("Malformed cursor");
+            String head = cursor.substring(0, split);
+            String uuid = cursor.substring(split + 1);
+            return sort == PlayerQuery.Sort.NAME
+                ? new SortPosition(head, 0L, uuid)
+                : new SortPosition(null, Long.parseLong(head), uuid);
+        }
+
+        // Sign of (this - row) in sortOrder's ascending order
+        int compareTo(PlayerQuery.Sort sort, PlayerSnapshot row) {
+            int cmp = sort == PlayerQuery.Sort.NAME
+                ? name.compareTo(lowerName(row))
+                : Long.compare(value, sortValue(sort, row));
+            return cmp != 0 ? cmp : uuid.compareTo(row.getUuid().toString());
+        }
+    }
+
+    // Bumped every time a new roster is published; cached responses are keyed on it
+    public long getSnapshotVersion() {
+        return roster.version();
+    }
+
+    public Roster getRoster() {
+        return roster;
+    }
+
+    // Listeners run on the server thread right after each publish and must hand off any real work
+    public void addSnapshotListener(java.util.function.BiConsumer<Roster, Roster> listener) {
+        snapshotListeners.add(listener);
+    }
+
+    public void removeSnapshotListener(java.util.function.BiConsumer<Roster, Roster> listener) {
+        snapshotListeners.remove(listener);
+    }
+
+    // Ask for a fresh snapshot at the end of the current tick instead of waiting for the interval
+    public void requestSnapshot() {
+        snapshotRequested = true;
+    }
+
+    // Server thread only: refresh online players from their entities and publish a new roster
+    private void publishSnapshot() {
+        snapshotRequested = false;
+        ticksSinceSnapshot = 0;
+
+        Map<UUID, PlayerSnapshot> online = new HashMap<>();
         for (PlayerInfo info : players.values()) {
-            if (info.getPlayer() != null) {
-                info.updateFromPlayer(info.getPlayer());
+            ServerPlayerEntity player = info.getPlayer();
+            if (player != null) {
+                info.updateFromPlayer(player);
             }
-            onlineList.add(info.toJson());
+            PlayerSnapshot snapshot = buildSnapshot(info, player);
+            online.put(info.getUuid(), snapshot);
+            rosterIndex.update(snapshot);
         }
-        
-        List<JsonObject> offlineList = new ArrayList<>();
-        for (PlayerInfo info : offlinePlayers.values()) {
-            offlineList.add(info.toJson());
+
+        Roster previous = roster;
+        // Copy the offline map only when someone joined, left or was edited while offline, and
+        // rebuild just those players' snapshots; everyone else's snapshot and index entry is shared
+        Map<UUID, PlayerSnapshot> offline = previous.offline();
+        if (!offlineChanged.isEmpty()) {
+            Map<UUID, PlayerSnapshot> changed = new HashMap<>(offline);
+            for (Iterator<UUID> it = offlineChanged.iterator(); it.hasNext(); ) {
+                UUID uuid = it.next();
+                it.remove();
+                OfflineRoster.Entry entry = offlinePlayers.entry(uuid);
+                if (entry == null) {
+                    changed.remove(uuid);
+                    if (!online.containsKey(uuid)) rosterIndex.remove(uuid);
+                } else {
+                    PlayerSnapshot snapshot = buildSnapshot(entry.summary, null);
+                    changed.put(uuid, snapshot);
+                    rosterIndex.update(snapshot);
+                }
+            }
+            offline = Collections.unmodifiableMap(changed);
+        }
+
+        Roster current = nextRoster(previous, online, offline, System.currentTimeMillis());
+        if (current == previous) return;
+        roster = current;
+        for (var listener : snapshotListeners) {
+            try { listener.accept(previous, current); } catch (Exception e) { dev.synm.SynM.LOGGER.error("Snapshot listener failed", e); }
         }
-        
-        result.put("online", onlineList);
-        result.put("offline", offlineList);
-        
-        return gson.toJson(result);
     }
+
+    // Returns previous itself when nothing visible changed, so caches and ETags stay valid and listeners stay quiet
+    static Roster nextRoster(Roster previous, Map<UUID, PlayerSnapshot> online, Map<UUID, PlayerSnapshot> offline, long now) {
+        if (offline == previous.offline() && online.equals(previous.online())) return previous;
+        return new Roster(previous.version() + 1, now, Collections.unmodifiableMap(online), offline);
+    }
+
+    private PlayerSnapshot buildSnapshot(PlayerInfo info, ServerPlayerEntity player) {
+        UUID uuid = info.getUuid();
+        SessionStore.History history = sessions.get(uuid);
+        boolean canFly = player != null && player.getAbilities().allowFlying;
+        boolean flying = player != null && player.getAbilities().flying;
+        return new PlayerSnapshot(info, getPlayerNote(uuid), isPlayerFrozen(uuid), isPlayerInGodMode(uuid),
+            isPlayerVanished(uuid), canFly, flying,
+            history != null ? history.recent() : List.of(),
+            history != null ? history.count() : 0,
+            history != null ? history.lastIp() : null);
+    }
+
+    // Roster published through a single volatile reference; both maps are immutable, so a version always renders the same
+    public record Roster(long version, long capturedAt,
+                          Map<UUID, PlayerSnapshot> online, Map<UUID, PlayerSnapshot> offline) {}
 }
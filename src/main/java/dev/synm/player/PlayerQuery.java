@@ -0,0 +1,82 @@
+package dev.synm.player;
+
+import net.minecraft.world.GameMode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Filter, sort and page parameters for /api/players.
+ * The cursor is opaque to clients: it encodes the sort key and uuid of the last row returned.
+ */
+public record PlayerQuery(Boolean online, String dimension, GameMode gameMode, String prefix,
+                          Sort sort, boolean descending, int limit, String cursor) {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    public enum Sort { NAME, LAST_SEEN, PLAYTIME, HEALTH }
+
+    // Throws IllegalArgumentException for malformed values so the handler can answer 400
+    public static PlayerQuery parse(Map<String, String> params) {
+        Boolean online = null;
+        String onlineParam = params.get("online");
+        if (onlineParam != null && !onlineParam.isEmpty()) online = Boolean.parseBoolean(onlineParam);
+
+        String dimension = emptyToNull(params.get("dimension"));
+        if (dimension != null && !dimension.contains(":")) dimension = "minecraft:" + dimension;
+
+        GameMode gameMode = null;
+        String modeParam = emptyToNull(params.get("gamemode"));
+        if (modeParam != null) {
+            for (GameMode mode : GameMode.values()) {
+                if (mode.getName().equalsIgnoreCase(modeParam)) gameMode = mode;
+            }
+            if (gameMode == null) throw new IllegalArgumentException("Unknown gamemode: " + modeParam);
+        }
+
+        String sortParam = params.getOrDefault("sort", "name");
+        boolean descending = sortParam.startsWith("-");
+        if (descending) sortParam = sortParam.substring(1);
+        Sort sort = switch (sortParam.toLowerCase()) {
+            case "name", "username" -> Sort.NAME;
+            case "lastseen" -> Sort.LAST_SEEN;
+            case "playtime" -> Sort.PLAYTIME;
+            case "health" -> Sort.HEALTH;
+            default -> throw new IllegalArgumentException("Unknown sort: " + sortParam);
+        };
+
+        int limit = DEFAULT_LIMIT;
+        String limitParam = emptyToNull(params.get("limit"));
+        if (limitParam != null) limit = Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(limitParam)));
+
+        String cursor = emptyToNull(params.get("cursor"));
+        if (cursor != null) {
+            cursor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // Key of the last row: name key, or numeric value, then '\0' and the uuid
+            int split = cursor.lastIndexOf('\0');
+            if (split < 0) throw new IllegalArgumentException("Malformed cursor");
+            if (sort != Sort.NAME) Long.parseLong(cursor.substring(0, split));
+        }
+        return new PlayerQuery(online, dimension, gameMode, emptyToNull(params.get("q")), sort, descending, limit, cursor);
+    }
+
+    static String encodeCursor(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    boolean matches(PlayerSnapshot snapshot) {
+        if (online != null && snapshot.isOnline() != online) return false;
+        if (dimension != null && !dimension.equals(snapshot.getDimensionName())) return false;
+        if (gameMode != null && snapshot.getGameMode() != gameMode) return false;
+        if (prefix != null) {
+            String name = snapshot.getUsername();
+            if (name == null || !name.regionMatches(true, 0, prefix, 0, prefix.length())) return false;
+        }
+        return true;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,337 @@
+package dev.synm.player;
+
+import net.minecraft.world.GameMode;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Immutable view of a player captured on the server thread.
+ * Web handlers only ever read these, never the live ServerPlayerEntity.
+ */
+public final class PlayerSnapshot {
+    private final UUID uuid;
+    private final String username;
+    private final boolean online;
+    private final long lastSeen;
+    private final long firstJoined;
+    private final long totalPlayTime;
+
+    private final double health;
+    private final double maxHealth;
+    private final int foodLevel;
+    private final float saturationLevel;
+    private final GameMode gameMode;
+    private final double x, y, z;
+    private final String dimensionName;
+    private final int experienceLevel;
+    private final float experienceProgress;
+
+    // Per-slot ItemDictionary ids and counts, shared with PlayerInfo (never modified); null without inventory
+    private final int[] slotItems;
+    private final int[] slotCounts;
+    // Custom names per slot, or null when nothing is renamed
+    private final String[] slotNames;
+    private final long inventoryVersion;
+
+    // Admin state, captured alongside the stats so a response is internally consistent
+    private final String note;
+    private final boolean frozen;
+    private final boolean godMode;
+    private final boolean vanished;
+    private final boolean canFly;
+    private final boolean flying;
+    // Newest sessions plus aggregates over the whole history
+    private final List<Session> sessions;
+    private final int sessionCount;
+    private final String lastIp;
+
+    PlayerSnapshot(PlayerInfo info, String note, boolean frozen, boolean godMode, boolean vanished,
+                   boolean canFly, boolean flying, List<Session> sessions, int sessionCount, String lastIp) {
+        this.uuid = info.getUuid();
+        this.username = info.getUsername();
+        this.online = info.isOnline();
+        this.lastSeen = info.getLastSeen();
+        this.firstJoined = info.getFirstJoined();
+        this.totalPlayTime = info.getTotalPlayTime();
+        this.health = info.getHealth();
+        this.maxHealth = info.getMaxHealth();
+        this.foodLevel = info.getFoodLevel();
+        this.saturationLevel = info.getSaturationLevel();
+        this.gameMode = info.getGameMode();
+        this.x = info.getX();
+        this.y = info.getY();
+        this.z = info.getZ();
+        this.dimensionName = info.getDimensionName();
+        this.experienceLevel = info.getExperienceLevel();
+        this.experienceProgress = info.getExperienceProgress();
+        this.slotItems = info.getSlotItems();
+        this.slotCounts = info.getSlotCounts();
+        this.slotNames = info.getSlotNames();
+        this.inventoryVersion = info.getInventoryVersion();
+        this.note = note;
+        this.frozen = frozen;
+        this.godMode = godMode;
+        this.vanished = vanished;
+        this.canFly = canFly;
+        this.flying = flying;
+        this.sessions = List.copyOf(sessions);
+        this.sessionCount = sessionCount;
+        this.lastIp = lastIp;
+    }
+
+    // Summary used by the players list
+    public void write(RecordWriter out) throws IOException {
+        out.beginObject();
+        writeStats(out);
+        out.name(PlayerField.SATURATION_LEVEL).value(saturationLevel);
+        out.name(PlayerField.FIRST_JOINED).value(firstJoined);
+        out.name(PlayerField.EXPERIENCE_PROGRESS).value(experienceProgress);
+
+        // Add inventory data
+        writeInventory(out);
+        out.endObject();
+    }
+
+    // Slim projection for paged list queries: no inventory, detail stays at /api/player/{uuid}
+    public void writeSummary(RecordWriter out) throws IOException {
+        out.beginObject();
+        writeStats(out);
+        writeAdminState(out);
+        out.endObject();
+    }
+
+    // Full view used by the player detail endpoint
+    public void writeDetail(RecordWriter out) throws IOException {
+        out.beginObject();
+        writeStats(out);
+        out.name(PlayerField.SATURATION_LEVEL).value(saturationLevel);
+        out.name(PlayerField.FIRST_JOINED).value(firstJoined);
+        out.name(PlayerField.EXPERIENCE_PROGRESS).value(experienceProgress);
+        writeInventory(out);
+        out.name(PlayerField.NOTE).value(note);
+        writeAdminState(out);
+
+        // Flight status only makes sense for online players
+        if (online) {
+            out.name(PlayerField.CAN_FLY).value(canFly);
+            out.name(PlayerField.IS_FLYING).value(flying);
+        }
+
+        out.name(PlayerField.SESSIONS).beginArray();
+        for (Session s : sessions) {
+            out.beginObject();
+            out.name(PlayerField.SESSION_START).value(s.start());
+            if (s.end() > 0) out.name(PlayerField.SESSION_END).value(s.end());
+            if (s.ip() != null) out.name(PlayerField.SESSION_IP).value(s.ip());
+            out.endObject();
+        }
+        out.endArray();
+        out.name(PlayerField.SESSION_COUNT).value(sessionCount);
+        out.name(PlayerField.LAST_IP).value(lastIp);
+        out.endObject();
+    }
+
+    // Fields shared by every projection
+    private void writeStats(RecordWriter out) throws IOException {
+        out.name(PlayerField.UUID).value(uuid);
+        out.name(PlayerField.USERNAME).value(username);
+        out.name(PlayerField.ONLINE).value(online);
+        out.name(PlayerField.LAST_SEEN).value(lastSeen);
+        out.name(PlayerField.HEALTH).value(health);
+        out.name(PlayerField.MAX_HEALTH).value(maxHealth);
+        out.name(PlayerField.HEALTH_PERCENTAGE).value(maxHealth > 0 ? (health / maxHealth) * 100 : 0);
+        out.name(PlayerField.FOOD_LEVEL).value(foodLevel);
+        out.name(PlayerField.GAME_MODE).value(gameMode != null ? gameMode.getName() : "unknown");
+        out.name(PlayerField.X).value(x);
+        out.name(PlayerField.Y).value(y);
+        out.name(PlayerField.Z).value(z);
+        out.name(PlayerField.DIMENSION).value(dimensionName);
+        out.name(PlayerField.EXPERIENCE_LEVEL).value(experienceLevel);
+        out.name(PlayerField.TOTAL_PLAY_TIME).value(totalPlayTime);
+        out.name(PlayerField.TOTAL_PLAY_TIME_FORMATTED).value(formatPlayTime(totalPlayTime));
+    }
+
+    private void writeAdminState(RecordWriter out) throws IOException {
+        out.name(PlayerField.FROZEN).value(frozen);
+        out.name(PlayerField.GOD_MODE).value(godMode);
+        out.name(PlayerField.VANISHED).value(vanished);
+    }
+
+    private void writeInventory(RecordWriter out) throws IOException {
+        if (slotItems == null) return;
+        writeItems(out.name(PlayerField.INVENTORY), 9, 36);
+        writeItems(out.name(PlayerField.HOTBAR), 0, 9);
+        writeItems(out.name(PlayerField.ARMOR), 36, 40);
+        writeItem(out.name(PlayerField.OFFHAND), 40);
+        out.name(PlayerField.INVENTORY_VERSION).value(inventoryVersion);
+    }
+
+    private void writeItems(RecordWriter out, int from, int to) throws IOException {
+        out.beginArray();
+        for (int slot = from; slot < to; slot++) {
+            writeItem(out, slot);
+        }
+        out.endArray();
+    }
+
+    // Default names come from the shared dictionary and are dropped by compact encodings;
+    // a custom name is always sent inline
+    private void writeItem(RecordWriter out, int slot) throws IOException {
+        ItemDictionary dictionary = ItemDictionary.shared();
+        int item = slotItems[slot];
+        int count = slotCounts[slot];
+        String customName = PlayerInfo.nameAt(slotNames, slot);
+        out.beginObject();
+        out.name(PlayerField.ITEM_SLOT).value(slot);
+        out.name(PlayerField.ITEM).value(item);
+        out.name(PlayerField.ITEM_ID).value(dictionary.itemId(item));
+        out.name(PlayerField.ITEM_DISPLAY_NAME).value(customName != null ? customName : dictionary.displayName(item));
+        out.name(PlayerField.ITEM_CUSTOM_NAME).value(customName);
+        out.name(PlayerField.ITEM_COUNT).value(count);
+        out.name(PlayerField.ITEM_EMPTY).value(count == 0);
+        out.endObject();
+    }
+
+    /**
+     * Fields of the list summary that differ from {@code previous}, plus the uuid.
+     * Returns null when nothing visible in the summary changed.
+     */
+    public JsonObject diff(PlayerSnapshot previous) {
+        JsonObject json = new JsonObject();
+        if (health != previous.health) json.addProperty("health", health);
+        if (maxHealth != previous.maxHealth) json.addProperty("maxHealth", maxHealth);
+        if (health != previous.health || maxHealth != previous.maxHealth) {
+            json.addProperty("healthPercentage", maxHealth > 0 ? (health / maxHealth) * 100 : 0);
+        }
+        if (foodLevel != previous.foodLevel) json.addProperty("foodLevel", foodLevel);
+        if (saturationLevel != previous.saturationLevel) json.addProperty("saturationLevel", saturationLevel);
+        if (gameMode != previous.gameMode) json.addProperty("gameMode", gameMode != null ? gameMode.getName() : "unknown");
+        if (x != previous.x || y != previous.y || z != previous.z) {
+            json.addProperty("x", x);
+            json.addProperty("y", y);
+            json.addProperty("z", z);
+        }
+        if (!java.util.Objects.equals(dimensionName, previous.dimensionName)) json.addProperty("dimension", dimensionName);
+        if (experienceLevel != previous.experienceLevel) json.addProperty("experienceLevel", experienceLevel);
+        if (experienceProgress != previous.experienceProgress) json.addProperty("experienceProgress", experienceProgress);
+        if (frozen != previous.frozen) json.addProperty("frozen", frozen);
+        if (godMode != previous.godMode) json.addProperty("godMode", godMode);
+        if (vanished != previous.vanished) json.addProperty("vanished", vanished);
+        if (inventoryVersion != previous.inventoryVersion) {
+            // Slots are only compared when the version says something moved
+            if (slotsChanged(previous, 9, 36)) json.add("inventory", itemsToJson(9, 36));
+            if (slotsChanged(previous, 0, 9)) json.add("hotbar", itemsToJson(0, 9));
+            if (slotsChanged(previous, 36, 40)) json.add("armor", itemsToJson(36, 40));
+            if (slotsChanged(previous, 40, 41)) json.add("offhand", itemToJson(40));
+            json.addProperty("inventoryVersion", inventoryVersion);
+        }
+        if (json.size() == 0) return null;
+        json.addProperty("uuid", uuid.toString());
+        return json;
+    }
+
+    // Value equality over everything a response can show, so an unchanged roster can keep its version
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PlayerSnapshot other)) return false;
+        return online == other.online && lastSeen == other.lastSeen && firstJoined == other.firstJoined
+            && totalPlayTime == other.totalPlayTime && health == other.health && maxHealth == other.maxHealth
+            && foodLevel == other.foodLevel && saturationLevel == other.saturationLevel && gameMode == other.gameMode
+            && x == other.x && y == other.y && z == other.z && experienceLevel == other.experienceLevel
+            && experienceProgress == other.experienceProgress && inventoryVersion == other.inventoryVersion
+            && frozen == other.frozen && godMode == other.godMode && vanished == other.vanished
+            && canFly == other.canFly && flying == other.flying && sessionCount == other.sessionCount
+            && uuid.equals(other.uuid) && java.util.Objects.equals(username, other.username)
+            && java.util.Objects.equals(dimensionName, other.dimensionName) && java.util.Objects.equals(note, other.note)
+            && java.util.Objects.equals(lastIp, other.lastIp) && sessions.equals(other.sessions)
+            && Arrays.equals(slotItems, other.slotItems) && Arrays.equals(slotCounts, other.slotCounts)
+            && Arrays.equals(slotNames, other.slotNames);
+    }
+
+    @Override
+    public int hashCode() {
+        return uuid.hashCode();
+    }
+
+    private boolean slotsChanged(PlayerSnapshot previous, int from, int to) {
+        if (slotItems == null) return false;
+        if (previous.slotItems == null) return true;
+        if (!Arrays.equals(slotItems, from, to, previous.slotItems, from, to)
+                || !Arrays.equals(slotCounts, from, to, previous.slotCounts, from, to)) {
+            return true;
+        }
+        for (int slot = from; slot < to; slot++) {
+            if (!java.util.Objects.equals(PlayerInfo.nameAt(slotNames, slot), PlayerInfo.nameAt(previous.slotNames, slot))) return true;
+        }
+        return false;
+    }
+
+    private JsonArray itemsToJson(int from, int to) {
+        JsonArray array = new JsonArray();
+        for (int slot = from; slot < to; slot++) {
+            array.add(itemToJson(slot));
+        }
+        return array;
+    }
+
+    private JsonObject itemToJson(int slot) {
+        ItemDictionary dictionary = ItemDictionary.shared();
+        int item = slotItems[slot];
+        JsonObject json = new JsonObject();
+        json.addProperty("slot", slot);
+        json.addProperty("item", item);
+        json.addProperty("itemId", dictionary.itemId(item));
+        String customName = PlayerInfo.nameAt(slotNames, slot);
+        json.addProperty("displayName", customName != null ? customName : dictionary.displayName(item));
+        if (customName != null) json.addProperty("customName", customName);
+        json.addProperty("count", slotCounts[slot]);
+        json.addProperty("isEmpty", slotCounts[slot] == 0);
+        return json;
+    }
+
+    static String formatPlayTime(long milliseconds) {
+        long seconds = milliseconds / 1000;
+        long minutes = seconds / 60;
+        long hours = minutes / 60;
+        long days = hours / 24;
+
+        if (days > 0) {
+            return String.format("%dd %dh %dm", days, hours % 24, minutes % 60);
+        } else if (hours > 0) {
+            return String.format("%dh %dm", hours, minutes % 60);
+        } else if (minutes > 0) {
+            return String.format("%dm %ds", minutes, seconds % 60);
+        } else {
+            return String.format("%ds", seconds);
+        }
+    }
+
+    public UUID getUuid() { return uuid; }
+    public String getUsername() { return username; }
+    public boolean isOnline() { return online; }
+    public long getLastSeen() { return lastSeen; }
+    public long getTotalPlayTime() { return totalPlayTime; }
+    public double getHealth() { return health; }
+    public GameMode getGameMode() { return gameMode; }
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public double getZ() { return z; }
+    public String getDimensionName() { return dimensionName; }
+    public long getInventoryVersion() { return inventoryVersion; }
+    public String getNote() { return note; }
+    public boolean isFrozen() { return frozen; }
+    public boolean isGodMode() { return godMode; }
+    public boolean isVanished() { return vanished; }
+    public int getSessionCount() { return sessionCount; }
+    public String getLastIp() { return lastIp; }
+
+    // Session entry copied out of the mutable history
+    public record Session(long start, long end, String ip) {}
+}
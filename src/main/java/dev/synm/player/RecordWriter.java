@@ -0,0 +1,24 @@
+package dev.synm.player;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Streaming output for player responses, implemented once per wire encoding.
+ * Keys are {@link PlayerField}s so every encoding shares one schema. Null
+ * values (and the key before them) are left out.
+ */
+public interface RecordWriter {
+    RecordWriter beginObject() throws IOException;
+    RecordWriter endObject() throws IOException;
+    RecordWriter beginArray() throws IOException;
+    RecordWriter endArray() throws IOException;
+    RecordWriter name(PlayerField field) throws IOException;
+    RecordWriter value(String value) throws IOException;
+    RecordWriter value(long value) throws IOException;
+    RecordWriter value(double value) throws IOException;
+    RecordWriter value(float value) throws IOException;
+    RecordWriter value(boolean value) throws IOException;
+    RecordWriter value(UUID value) throws IOException;
+    RecordWriter nullValue() throws IOException;
+}
@@ -0,0 +1,82 @@
+package dev.synm.player;
+
+import net.minecraft.world.GameMode;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Secondary indexes over the published roster: username (sorted, for prefix
+ * search and name-ordered paging), dimension and game mode. Updated
+ * incrementally on the server thread as snapshots are published; read
+ * concurrently by query handlers, which re-check every hit against the roster.
+ */
+class RosterIndex {
+    // Key is lowercase name + '\0' + uuid so equal names stay distinct and ordered
+    private final ConcurrentSkipListMap<String, UUID> byName = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<UUID>> byDimension = new ConcurrentHashMap<>();
+    private final Map<GameMode, Set<UUID>> byGameMode = new ConcurrentHashMap<>();
+    private final Map<UUID, Indexed> indexed = new ConcurrentHashMap<>();
+
+    // Server thread only; does nothing when the indexed fields did not change
+    void update(PlayerSnapshot snapshot) {
+        UUID uuid = snapshot.getUuid();
+        Indexed previous = indexed.get(uuid);
+        String name = nameKey(snapshot.getUsername(), uuid);
+        String dimension = snapshot.getDimensionName();
+        GameMode mode = snapshot.getGameMode();
+        if (previous != null && previous.nameKey.equals(name)
+                && Objects.equals(previous.dimension, dimension) && previous.gameMode == mode) {
+            return;
+        }
+        if (previous != null) unindex(uuid, previous);
+        byName.put(name, uuid);
+        if (dimension != null) byDimension.computeIfAbsent(dimension, k -> ConcurrentHashMap.newKeySet()).add(uuid);
+        if (mode != null) byGameMode.computeIfAbsent(mode, k -> ConcurrentHashMap.newKeySet()).add(uuid);
+        indexed.put(uuid, new Indexed(name, dimension, mode));
+    }
+
+    void remove(UUID uuid) {
+        Indexed previous = indexed.remove(uuid);
+        if (previous != null) unindex(uuid, previous);
+    }
+
+    private void unindex(UUID uuid, Indexed previous) {
+        byName.remove(previous.nameKey);
+        if (previous.dimension != null) {
+            Set<UUID> set = byDimension.get(previous.dimension);
+            if (set != null) set.remove(uuid);
+        }
+        if (previous.gameMode != null) {
+            Set<UUID> set = byGameMode.get(previous.gameMode);
+            if (set != null) set.remove(uuid);
+        }
+    }
+
+    // Name-ordered view; with a prefix only names starting with it
+    NavigableMap<String, UUID> byName(String prefix) {
+        if (prefix == null || prefix.isEmpty()) return byName;
+        String p = prefix.toLowerCase();
+        return byName.subMap(p, true, p + Character.MAX_VALUE, false);
+    }
+
+    Set<UUID> inDimension(String dimension) {
+        return byDimension.getOrDefault(dimension, Collections.emptySet());
+    }
+
+    Set<UUID> inGameMode(GameMode mode) {
+        return byGameMode.getOrDefault(mode, Collections.emptySet());
+    }
+
+    static String nameKey(String username, UUID uuid) {
+        return (username != null ? username.toLowerCase() : "") + '\0' + uuid;
+    }
+
+    private record Indexed(String nameKey, String dimension, GameMode gameMode) {}
+}
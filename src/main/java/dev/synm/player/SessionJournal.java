@@ -0,0 +1,280 @@
+package dev.synm.player;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Log-structured store for session start/end events.
+ *
+ * Every join and leave appends one fixed-size record to the journal, so a write
+ * costs the same no matter how much history exists. Once the journal holds
+ * enough records it is compacted: the full history is written to a snapshot
+ * file and the journal is truncated. Startup reads the snapshot and replays the
+ * journal tail, stopping at the first torn or corrupt record.
+ *
+ * Record layout (80 bytes, big-endian):
+ * type(1) ipLength(1) reserved(2) crc32(4) uuidMost(8) uuidLeast(8) time(8) ip(48)
+ */
+class SessionJournal {
+    static final int RECORD_SIZE = 80;
+    private static final int IP_BYTES = 48;
+    private static final byte TYPE_START = 1;
+    private static final byte TYPE_END = 2;
+    private static final int SNAPSHOT_MAGIC = 0x53594E53; // "SYNS"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final Path journalFile;
+    private final Path snapshotFile;
+    private final int compactThreshold;
+    private final SessionStore store;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private ExecutorService writer;
+    private FileChannel channel;
+    private int recordsSinceCompaction;
+    private volatile boolean closed = true;
+    // Set once close() has forced and closed the channel; later appends are dropped, not reopened
+    private boolean released;
+
+    SessionJournal(Path journalFile, Path snapshotFile, int compactThreshold,
+                   SessionStore store) {
+        this.journalFile = journalFile;
+        this.snapshotFile = snapshotFile;
+        this.compactThreshold = compactThreshold;
+        this.store = store;
+    }
+
+    boolean hasSnapshot() {
+        return Files.exists(snapshotFile);
+    }
+
+    // Snapshot + journal replay into the store. Called once before open().
+    void load() {
+        if (Files.exists(snapshotFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+                if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                    throw new IOException("Unrecognized session snapshot header");
+                }
+                int players = in.readInt();
+                for (int p = 0; p < players; p++) {
+                    UUID uuid = new UUID(in.readLong(), in.readLong());
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        long start = in.readLong();
+                        long end = in.readLong();
+                        store.add(uuid, start, end, in.readUTF());
+                    }
+                }
+            } catch (IOException e) {
+                dev.synm.SynM.LOGGER.error("Failed to read session snapshot {}", snapshotFile, e);
+            }
+        }
+        int replayed = replay();
+        recordsSinceCompaction = replayed;
+        dev.synm.SynM.LOGGER.info("Loaded session history for {} players ({} journal records replayed)", store.histories().size(), replayed);
+    }
+
+    private int replay() {
+        if (!Files.exists(journalFile)) return 0;
+        int count = 0;
+        try (FileChannel in = FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+            long valid = 0;
+            while (true) {
+                buf.clear();
+                while (buf.hasRemaining() && in.read(buf) > 0) { }
+                if (buf.position() < RECORD_SIZE || !applyRecord(buf)) break;
+                valid += RECORD_SIZE;
+                count++;
+            }
+            if (valid < in.size()) {
+                // Torn tail from a crash mid-append: drop it so new records start on a clean boundary
+                dev.synm.SynM.LOGGER.warn("Truncating {} trailing bytes from session journal", in.size() - valid);
+                in.truncate(valid);
+            }
+        } catch (IOException e) {
+            dev.synm.SynM.LOGGER.error("Failed to replay session journal {}", journalFile, e);
+        }
+        return count;
+    }
+
+    // Replay is idempotent so records that also made it into the snapshot are harmless
+    private boolean applyRecord(ByteBuffer buf) {
+        byte[] bytes = buf.array();
+        crc.reset();
+        crc.update(bytes, 0, 4);
+        crc.update(bytes, 8, RECORD_SIZE - 8);
+        buf.flip();
+        byte type = buf.get();
+        int ipLength = buf.get() & 0xFF;
+        buf.getShort();
+        if (buf.getInt() != (int) crc.getValue() || ipLength > IP_BYTES) return false;
+        UUID uuid = new UUID(buf.getLong(), buf.getLong());
+        long time = buf.getLong();
+        String ip = new String(bytes, buf.position(), ipLength, StandardCharsets.UTF_8);
+
+        if (type == TYPE_START) {
+            store.start(uuid, time, ip);
+            return true;
+        } else if (type == TYPE_END) {
+            store.end(uuid, time);
+            return true;
+        }
+        return false;
+    }
+
+    synchronized void open() {
+        if (!closed) return;
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            dev.synm.SynM.LOGGER.error("Failed to open session journal {}", journalFile, e);
+        }
+        writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "SynM-SessionJournal");
+            t.setDaemon(true);
+            return t;
+        });
+        released = false;
+        closed = false;
+    }
+
+    void appendStart(UUID uuid, long start, String ip) {
+        submit(() -> append(TYPE_START, uuid, start, ip));
+    }
+
+    void appendEnd(UUID uuid, long end) {
+        submit(() -> append(TYPE_END, uuid, end, ""));
+    }
+
+    private void submit(Runnable task) {
+        ExecutorService executor = writer;
+        if (!closed && executor != null) {
+            try {
+                executor.execute(task);
+                return;
+            } catch (RejectedExecutionException ignored) {
+                // Closed concurrently; write inline below
+            }
+        }
+        task.run();
+    }
+
+    private synchronized void append(byte type, UUID uuid, long time, String ip) {
+        if (released) {
+            dev.synm.SynM.LOGGER.warn("Dropping session {} event for {} after the journal was closed",
+                type == TYPE_START ? "start" : "end", uuid);
+            return;
+        }
+        byte[] ipBytes = ip == null ? new byte[0] : ip.getBytes(StandardCharsets.UTF_8);
+        int ipLength = Math.min(ipBytes.length, IP_BYTES);
+        byte[] bytes = record.array();
+        java.util.Arrays.fill(bytes, (byte) 0);
+        record.clear();
+        record.put(type).put((byte) ipLength).putShort((short) 0).putInt(0)
+            .putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).putLong(time)
+            .put(ipBytes, 0, ipLength);
+        crc.reset();
+        crc.update(bytes, 0, 4);
+        crc.update(bytes, 8, RECORD_SIZE - 8);
+        record.putInt(4, (int) crc.getValue());
+        record.position(0).limit(RECORD_SIZE);
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            while (record.hasRemaining()) channel.write(record);
+            if (++recordsSinceCompaction >= compactThreshold) compact();
+        } catch (IOException e) {
+            dev.synm.SynM.LOGGER.error("Failed to append to session journal", e);
+        }
+    }
+
+    // Write the full history to the snapshot file and start a fresh journal
+    synchronized void compact() {
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                // Counted up front: players who join mid-compaction must not skew the header
+                Map<UUID, SessionStore.History> all = Map.copyOf(store.histories());
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(all.size());
+                for (Map.Entry<UUID, SessionStore.History> entry : all.entrySet()) {
+                    SessionStore.Columns columns = entry.getValue().columns();
+                    out.writeLong(entry.getKey().getMostSignificantBits());
+                    out.writeLong(entry.getKey().getLeastSignificantBits());
+                    out.writeInt(columns.starts().length);
+                    for (int i = 0; i < columns.starts().length; i++) {
+                        out.writeLong(columns.starts()[i]);
+                        out.writeLong(columns.ends()[i]);
+                        out.writeUTF(columns.ips()[i]);
+                    }
+                }
+            }
+            try {
+                Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // A crash before this truncate only means the tail is replayed again on top of the snapshot
+            if (channel != null) {
+                channel.truncate(0);
+            } else if (Files.exists(journalFile)) {
+                try (FileChannel c = FileChannel.open(journalFile, StandardOpenOption.WRITE)) { c.truncate(0); }
+            }
+            recordsSinceCompaction = 0;
+        } catch (IOException e) {
+            dev.synm.SynM.LOGGER.error("Failed to compact session journal", e);
+        }
+    }
+
+    void close() {
+        ExecutorService executor;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            executor = writer;
+            writer = null;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                if (channel != null) {
+                    channel.force(false);
+                    channel.close();
+                }
+            } catch (IOException e) {
+                dev.synm.SynM.LOGGER.error("Failed to close session journal", e);
+            }
+            channel = null;
+            released = true;
+        }
+    }
+}
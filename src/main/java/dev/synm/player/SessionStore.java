@@ -0,0 +1,173 @@
+package dev.synm.player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session history for every player, stored column-wise: per player, parallel
+ * primitive arrays of start, end and IP id, where IP strings are interned
+ * once for the whole store. Running totals (closed-session time, count, last
+ * IP) are maintained on append and the recent-sessions view handed to
+ * snapshots is cached until the next change, so reads never walk the history.
+ *
+ * Appends come from the server thread and journal replay; reads may come
+ * from any thread. Each player's history is guarded by its own monitor.
+ */
+class SessionStore {
+    static final int RECENT_SESSIONS = 10;
+
+    private final Map<UUID, History> histories = new ConcurrentHashMap<>();
+    private final Map<String, Integer> ipIds = new HashMap<>();
+    private final List<String> ips = new ArrayList<>();
+
+    private synchronized int ipId(String ip) {
+        String key = ip != null ? ip : "";
+        Integer id = ipIds.get(key);
+        if (id == null) {
+            id = ips.size();
+            ips.add(key);
+            ipIds.put(key, id);
+        }
+        return id;
+    }
+
+    synchronized String ip(int id) {
+        return ips.get(id);
+    }
+
+    private History history(UUID uuid) {
+        return histories.computeIfAbsent(uuid, k -> new History());
+    }
+
+    /**
+     * Record a session start. Idempotent, so a journal record that is also in
+     * the snapshot is harmless on replay. Returns false if it was already known.
+     */
+    boolean start(UUID uuid, long start, String ip) {
+        return history(uuid).add(start, 0L, ipId(ip));
+    }
+
+    // Closed session, e.g. from a snapshot or legacy import
+    void add(UUID uuid, long start, long end, String ip) {
+        history(uuid).add(start, end, ipId(ip));
+    }
+
+    /**
+     * Close the newest open session that started at or before {@code end}.
+     * Returns its start time, or -1 if there was no open session.
+     */
+    long end(UUID uuid, long end) {
+        History h = histories.get(uuid);
+        return h != null ? h.close(end) : -1L;
+    }
+
+    Map<UUID, History> histories() {
+        return histories;
+    }
+
+    boolean isEmpty() {
+        return histories.isEmpty();
+    }
+
+    History get(UUID uuid) {
+        return histories.get(uuid);
+    }
+
+    final class History {
+        private long[] starts = new long[4];
+        private long[] ends = new long[4];
+        private int[] ipIds = new int[4];
+        private int size;
+        // Aggregates kept current on every change
+        private long closedTime;
+        private int lastIp = -1;
+        // Built on first read after a change
+        private List<PlayerSnapshot.Session> recent;
+
+        private synchronized boolean add(long start, long end, int ip) {
+            // Sessions arrive in start order; out-of-order inserts only happen on replay
+            int at = size;
+            if (size > 0 && starts[size - 1] >= start) {
+                at = Arrays.binarySearch(starts, 0, size, start);
+                if (at >= 0) return false;
+                at = -at - 1;
+            }
+            if (size == starts.length) {
+                int capacity = size * 2;
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                ipIds = Arrays.copyOf(ipIds, capacity);
+            }
+            System.arraycopy(starts, at, starts, at + 1, size - at);
+            System.arraycopy(ends, at, ends, at + 1, size - at);
+            System.arraycopy(ipIds, at, ipIds, at + 1, size - at);
+            starts[at] = start;
+            ends[at] = end;
+            ipIds[at] = ip;
+            size++;
+            if (end > 0) closedTime += end - start;
+            if (at == size - 1) lastIp = ip;
+            recent = null;
+            return true;
+        }
+
+        private synchronized long close(long end) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (ends[i] == 0L && starts[i] <= end) {
+                    ends[i] = end;
+                    closedTime += end - starts[i];
+                    recent = null;
+                    return starts[i];
+                }
+            }
+            return -1L;
+        }
+
+        // Newest sessions, oldest first; an immutable list shared until the next change
+        synchronized List<PlayerSnapshot.Session> recent() {
+            if (recent == null) {
+                int from = Math.max(0, size - RECENT_SESSIONS);
+                PlayerSnapshot.Session[] sessions = new PlayerSnapshot.Session[size - from];
+                for (int i = from; i < size; i++) {
+                    sessions[i - from] = new PlayerSnapshot.Session(starts[i], ends[i], ip(ipIds[i]));
+                }
+                recent = List.of(sessions);
+            }
+            return recent;
+        }
+
+        // Start of the first session on record, or -1 if there is none
+        synchronized long firstStart() {
+            return size > 0 ? starts[0] : -1L;
+        }
+
+        synchronized int count() {
+            return size;
+        }
+
+        // Closed-session time plus the open session's time so far
+        synchronized long totalTime(long now) {
+            long total = closedTime;
+            if (size > 0 && ends[size - 1] == 0L && now > starts[size - 1]) total += now - starts[size - 1];
+            return total;
+        }
+
+        synchronized String lastIp() {
+            return lastIp >= 0 ? ip(lastIp) : null;
+        }
+
+        // Consistent copy of the columns, for the journal snapshot writer
+        synchronized Columns columns() {
+            String[] ipColumn = new String[size];
+            for (int i = 0; i < size; i++) ipColumn[i] = ip(ipIds[i]);
+            return new Columns(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size), ipColumn);
+        }
+    }
+
+    record Columns(long[] starts, long[] ends, String[] ips) {}
+}
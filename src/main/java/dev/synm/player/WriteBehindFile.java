@@ -0,0 +1,112 @@
+package dev.synm.player;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import dev.synm.metrics.Histogram;
+
+/**
+ * Debounced background writer for a single data file. Callers only mark the
+ * data dirty; a burst of changes is coalesced into one write that runs off the
+ * server thread and replaces the file atomically via a temp file + rename.
+ */
+class WriteBehindFile {
+    private final Path target;
+    private final Supplier<String> serializer;
+    private final long debounceMillis;
+    // Time per write, serialization included
+    private final Histogram writeTime;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile ScheduledExecutorService scheduler;
+    // Writes are inline until open() and again after close()
+    private volatile boolean closed = true;
+
+    WriteBehindFile(Path target, Supplier<String> serializer, long debounceMillis, Histogram writeTime) {
+        this.target = target;
+        this.serializer = serializer;
+        this.debounceMillis = debounceMillis;
+        this.writeTime = writeTime;
+    }
+
+    // Start the background writer; called once per server start
+    synchronized void open() {
+        if (!closed) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "SynM-DataWriter");
+            t.setDaemon(true);
+            return t;
+        });
+        closed = false;
+    }
+
+    // Cheap enough to call from the server thread on every change
+    void markDirty() {
+        if (closed) {
+            // Late changes during shutdown (e.g. disconnects after SERVER_STOPPING) are written inline
+            dirty.set(true);
+            flush();
+            return;
+        }
+        if (dirty.compareAndSet(false, true)) {
+            ScheduledExecutorService executor = scheduler;
+            if (executor != null) {
+                try {
+                    executor.schedule(this::flush, debounceMillis, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (java.util.concurrent.RejectedExecutionException ignored) {
+                    // Closed concurrently; fall through to an inline write
+                }
+            }
+            flush();
+        }
+    }
+
+    synchronized void flush() {
+        if (!dirty.getAndSet(false)) return;
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        long started = System.nanoTime();
+        try {
+            Files.writeString(temp, serializer.get(), StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            writeTime.record(System.nanoTime() - started);
+        } catch (Exception e) {
+            dev.synm.SynM.LOGGER.error("Failed to save {}", target, e);
+            // Retry after another debounce window, or on the next inline write once closed
+            if (closed) {
+                dirty.set(true);
+            } else {
+                markDirty();
+            }
+        }
+    }
+
+    // Final synchronous flush; later changes are written inline
+    void close() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            executor = scheduler;
+            scheduler = null;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
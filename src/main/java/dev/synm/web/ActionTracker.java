@@ -0,0 +1,117 @@
+package dev.synm.web;
+
+import com.google.gson.JsonObject;
+
+import dev.synm.metrics.Metrics;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Tracks admin actions handed to the server thread. Each action gets an id and
+ * a future completed on the tick with its real result, so the HTTP handler can
+ * wait briefly for it and clients can look it up (or receive it on the event
+ * stream) if it takes longer.
+ */
+class ActionTracker {
+    // Finished operations stay queryable for this long
+    private static final long RETAIN_MS = 5 * 60 * 1000;
+    private static final int PRUNE_THRESHOLD = 256;
+
+    private final Executor serverExecutor;
+    private final Consumer<Operation> onComplete;
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final Map<Long, Operation> operations = new ConcurrentHashMap<>();
+
+    ActionTracker(Executor serverExecutor, Consumer<Operation> onComplete) {
+        this.serverExecutor = serverExecutor;
+        this.onComplete = onComplete;
+    }
+
+    Operation submit(String action, Supplier<JsonObject> task) {
+        if (operations.size() > PRUNE_THRESHOLD) prune();
+        Operation op = new Operation(nextId.getAndIncrement(), action);
+        operations.put(op.id, op);
+        try {
+            serverExecutor.execute(() -> {
+                op.startedNanos = System.nanoTime();
+                try {
+                    op.future.complete(task.get());
+                } catch (Throwable t) {
+                    op.future.completeExceptionally(t);
+                } finally {
+                    op.finishedNanos = System.nanoTime();
+                    op.finishedAt = System.currentTimeMillis();
+                    Metrics.ACTION_QUEUE.record(op.startedNanos - op.submittedNanos);
+                    Metrics.ACTION_RUN.record(op.finishedNanos - op.startedNanos);
+                    onComplete.accept(op);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Server is shutting down
+            op.future.completeExceptionally(e);
+            op.finishedAt = System.currentTimeMillis();
+        }
+        return op;
+    }
+
+    Operation get(long id) {
+        return operations.get(id);
+    }
+
+    private void prune() {
+        long cutoff = System.currentTimeMillis() - RETAIN_MS;
+        operations.values().removeIf(op -> op.finishedAt != 0 && op.finishedAt < cutoff);
+    }
+
+    static final class Operation {
+        final long id;
+        final String action;
+        final long submittedNanos = System.nanoTime();
+        final CompletableFuture<JsonObject> future = new CompletableFuture<>();
+        volatile long startedNanos;
+        volatile long finishedNanos;
+        volatile long finishedAt;
+
+        Operation(long id, String action) {
+            this.id = id;
+            this.action = action;
+        }
+
+        // Time spent waiting for the server thread, then running on it
+        double queueMillis() {
+            return startedNanos == 0 ? 0 : (startedNanos - submittedNanos) / 1_000_000.0;
+        }
+
+        double runMillis() {
+            return finishedNanos == 0 ? 0 : (finishedNanos - startedNanos) / 1_000_000.0;
+        }
+
+        JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("operationId", id);
+            json.addProperty("action", action);
+            if (!future.isDone()) {
+                json.addProperty("status", "pending");
+                return json;
+            }
+            if (future.isCompletedExceptionally()) {
+                json.addProperty("status", "failed");
+                json.addProperty("success", false);
+                json.addProperty("error", "failed");
+            } else {
+                json.addProperty("status", "done");
+                future.join().entrySet().forEach(e -> json.add(e.getKey(), e.getValue()));
+            }
+            json.addProperty("queueMs", queueMillis());
+            json.addProperty("runMs", runMillis());
+            return json;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package dev.synm.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import dev.synm.player.PlayerField;
+import dev.synm.player.RecordWriter;
+
+/**
+ * Compact binary encoding of player responses (CBOR, RFC 8949), served as
+ * application/cbor. Maps are keyed by {@link PlayerField#id()} rather than by
+ * name, and derived fields are dropped. Maps and arrays use indefinite length
+ * so nothing has to be counted up front. UUIDs are tag 37 over 16 bytes, and
+ * doubles that fit a float without loss are written as floats.
+ */
+class CborRecordWriter implements RecordWriter {
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1;
+    private static final int MAJOR_BYTES = 2;
+    private static final int MAJOR_TEXT = 3;
+    private static final int TAG_UUID = 37;
+
+    private final OutputStream out;
+    private final byte[] scratch = new byte[9];
+    // Key waiting for its value; written only once the value is known to be kept
+    private int pendingKey = -1;
+    private boolean skipValue;
+
+    CborRecordWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public RecordWriter beginObject() throws IOException {
+        flushKey();
+        out.write(0xBF);
+        return this;
+    }
+
+    @Override
+    public RecordWriter endObject() throws IOException {
+        out.write(0xFF);
+        return this;
+    }
+
+    @Override
+    public RecordWriter beginArray() throws IOException {
+        flushKey();
+        out.write(0x9F);
+        return this;
+    }
+
+    @Override
+    public RecordWriter endArray() throws IOException {
+        out.write(0xFF);
+        return this;
+    }
+
+    @Override
+    public RecordWriter name(PlayerField field) {
+        pendingKey = field.id();
+        skipValue = field.derived();
+        return this;
+    }
+
+    @Override
+    public RecordWriter value(String value) throws IOException {
+        if (value == null) return nullValue();
+        if (!flushKey()) return this;
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeHead(MAJOR_TEXT, utf8.length);
+        out.write(utf8);
+        return this;
+    }
+
+    @Override
+    public RecordWriter value(long value) throws IOException {
+        if (!flushKey()) return this;
+        if (value >= 0) writeHead(MAJOR_UNSIGNED, value);
+        else writeHead(MAJOR_NEGATIVE, -1 - value);
+        return this;
+    }
+
+    @Override
+    public RecordWriter value(double value) throws IOException {
+        if ((double) (float) value == value || Double.isNaN(value)) return value((float) value);
+        if (!flushKey()) return this;
+        scratch[0] = (byte) 0xFB;
+        putLong(Double.doubleToLongBits(value), 8);
+        out.write(scratch, 0, 9);
+        return this;
+    }
+
+    @Override
+    public RecordWriter value(float value) throws IOException {
+        if (!flushKey()) return this;
+        scratch[0] = (byte) 0xFA;
+        putLong(Float.floatToIntBits(value) & 0xFFFFFFFFL, 4);
+        out.write(scratch, 0, 5);
+        return this;
+    }
+
+    @Override
+    public RecordWriter value(boolean value) throws IOException {
+        if (!flushKey()) return this;
+        out.write(value ? 0xF5 : 0xF4);
+        return this;
+    }
+
+    @Override
+    public RecordWriter value(UUID value) throws IOException {
+        if (value == null) return nullValue();
+        if (!flushKey()) return this;
+        writeHead(6, TAG_UUID);
+        writeHead(MAJOR_BYTES, 16);
+        putLong(value.getMostSignificantBits(), 8);
+        out.write(scratch, 1, 8);
+        putLong(value.getLeastSignificantBits(), 8);
+        out.write(scratch, 1, 8);
+        return this;
+    }
+
+    // Null members are left out, as in the JSON encoding
+    @Override
+    public RecordWriter nullValue() throws IOException {
+        if (pendingKey >= 0) {
+            pendingKey = -1;
+            skipValue = false;
+            return this;
+        }
+        out.write(0xF6);
+        return this;
+    }
+
+    // Writes the pending key, if any. False if the value that follows should be dropped.
+    private boolean flushKey() throws IOException {
+        if (pendingKey < 0) return true;
+        int key = pendingKey;
+        boolean skip = skipValue;
+        pendingKey = -1;
+        skipValue = false;
+        if (skip) return false;
+        writeHead(MAJOR_UNSIGNED, key);
+        return true;
+    }
+
+    private void writeHead(int major, long argument) throws IOException {
+        int type = major << 5;
+        if (argument < 24) {
+            out.write(type | (int) argument);
+        } else if (argument < 0x100) {
+            out.write(type | 24);
+            out.write((int) argument);
+        } else if (argument < 0x10000) {
+            scratch[0] = (byte) (type | 25);
+            putLong(argument, 2);
+            out.write(scratch, 0, 3);
+        } else if (argument < 0x100000000L) {
+            scratch[0] = (byte) (type | 26);
+            putLong(argument, 4);
+            out.write(scratch, 0, 5);
+        } else {
+            scratch[0] = (byte) (type | 27);
+            putLong(argument, 8);
+            out.write(scratch, 0, 9);
+        }
+    }
+
+    // Big-endian into scratch[1..bytes]
+    private void putLong(long value, int bytes) {
+        for (int i = bytes; i >= 1; i--) {
+            scratch[i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+}
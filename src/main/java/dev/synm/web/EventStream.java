@@ -0,0 +1,271 @@
+package dev.synm.web;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import dev.synm.player.PlayerManager;
+import dev.synm.player.PlayerManager.Roster;
+import dev.synm.player.PlayerSnapshot;
+
+/**
+ * Server-Sent Events endpoint that pushes roster changes to the portal.
+ * New subscribers get the full player list once, then only deltas. Each delta
+ * is computed and encoded once on a background thread and the same bytes are
+ * queued for every open stream. Every stream has its own bounded outbox and
+ * writer, so a slow client only backs up itself; one that falls too far
+ * behind is disconnected and resyncs from a fresh snapshot on reconnect.
+ */
+class EventStream implements HttpHandler {
+    private static final long HEARTBEAT_MS = 15_000;
+    private static final byte[] HEARTBEAT = ": ping\n\n".getBytes(StandardCharsets.UTF_8);
+    // Frames a stream may have queued before it counts as stalled
+    private static final int MAX_PENDING_FRAMES = 64;
+    // Version of frames that are not roster deltas; never skipped
+    private static final long UNVERSIONED = Long.MAX_VALUE;
+
+    private final PlayerManager playerManager;
+    private final Function<Roster, byte[]> fullRoster;
+    private final Gson gson = new Gson();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // Single-slot wakeup: bursts of snapshots coalesce into one diff against the last one sent
+    private final BlockingQueue<Boolean> wakeup = new ArrayBlockingQueue<>(1);
+    // One-off events (e.g. action results) waiting to be written by the worker
+    private final Queue<byte[]> outbox = new ConcurrentLinkedQueue<>();
+    private final BiConsumer<Roster, Roster> listener = (previous, current) -> {
+        if (!subscribers.isEmpty()) wakeup.offer(Boolean.TRUE);
+    };
+    private volatile boolean running;
+    private Thread worker;
+
+    EventStream(PlayerManager playerManager, Function<Roster, byte[]> fullRoster) {
+        this.playerManager = playerManager;
+        this.fullRoster = fullRoster;
+    }
+
+    void start() {
+        if (running) return;
+        running = true;
+        playerManager.addSnapshotListener(listener);
+        worker = new Thread(this::run, "SynM-EventStream");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    void stop() {
+        running = false;
+        playerManager.removeSnapshotListener(listener);
+        if (worker != null) worker.interrupt();
+        for (Subscriber s : subscribers) s.close();
+        subscribers.clear();
+    }
+
+    // Called by WebServer after the auth check
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) { exchange.sendResponseHeaders(405, -1); return; }
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=UTF-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.sendResponseHeaders(200, 0);
+
+        // Register before reading the roster so no delta published in between is missed.
+        // Deltas queued meanwhile that the snapshot already covers are skipped by version.
+        Subscriber subscriber = new Subscriber(exchange);
+        subscribers.add(subscriber);
+        Roster roster = playerManager.getRoster();
+        String head = "retry: 3000\nid: " + roster.version() + "\nevent: snapshot\ndata: ";
+        // The exchange stays open after this returns; the subscriber's writer owns it from here
+        byte[] body;
+        try {
+            body = fullRoster.apply(roster);
+        } catch (RuntimeException e) {
+            subscribers.remove(subscriber);
+            subscriber.close();
+            throw e;
+        }
+        subscriber.start(roster.version(), head.getBytes(StandardCharsets.UTF_8), body, "\n\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Queue a named event for every open stream; safe to call from the server thread
+    void publish(String event, JsonObject data) {
+        if (!running || subscribers.isEmpty()) return;
+        outbox.add(("event: " + event + "\ndata: " + gson.toJson(data) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        wakeup.offer(Boolean.TRUE);
+    }
+
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void run() {
+        Roster lastSent = playerManager.getRoster();
+        while (running) {
+            Boolean signalled;
+            try {
+                signalled = wakeup.poll(HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            for (byte[] frame; (frame = outbox.poll()) != null; ) broadcast(frame, UNVERSIONED);
+            Roster current = playerManager.getRoster();
+            if (signalled == null) {
+                broadcast(HEARTBEAT, UNVERSIONED);
+            } else if (current.version() != lastSent.version()) {
+                byte[] frame = renderDelta(lastSent, current);
+                if (frame != null) broadcast(frame, current.version());
+            }
+            lastSent = current;
+        }
+    }
+
+    private byte[] renderDelta(Roster previous, Roster current) {
+        List<PlayerSnapshot> joined = new ArrayList<>();
+        List<Object> left = new ArrayList<>();
+        List<JsonObject> changed = new ArrayList<>();
+
+        for (Map.Entry<UUID, PlayerSnapshot> entry : current.online().entrySet()) {
+            PlayerSnapshot before = previous.online().get(entry.getKey());
+            if (before == null) {
+                joined.add(entry.getValue());
+            } else {
+                JsonObject diff = entry.getValue().diff(before);
+                if (diff != null) changed.add(diff);
+            }
+        }
+        for (UUID uuid : previous.online().keySet()) {
+            if (current.online().containsKey(uuid)) continue;
+            PlayerSnapshot offline = current.offline().get(uuid);
+            left.add(offline != null ? offline : uuid);
+        }
+        if (joined.isEmpty() && left.isEmpty() && changed.isEmpty()) return null;
+
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(1024);
+        try {
+            frame.write(("id: " + current.version() + "\nevent: delta\ndata: ").getBytes(StandardCharsets.UTF_8));
+            JsonWriter out = new JsonWriter(new OutputStreamWriter(frame, StandardCharsets.UTF_8));
+            JsonRecordWriter players = new JsonRecordWriter(out);
+            out.beginObject();
+            out.name("version").value(current.version());
+            out.name("joined").beginArray();
+            for (PlayerSnapshot s : joined) s.write(players);
+            out.endArray();
+            out.name("left").beginArray();
+            for (Object o : left) {
+                if (o instanceof PlayerSnapshot s) {
+                    s.write(players);
+                } else {
+                    out.beginObject().name("uuid").value(o.toString()).endObject();
+                }
+            }
+            out.endArray();
+            out.name("changed").beginArray();
+            for (JsonObject diff : changed) gson.toJson(diff, out);
+            out.endArray();
+            out.endObject();
+            out.flush();
+            frame.write("\n\n".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // In-memory stream; cannot happen
+            throw new java.io.UncheckedIOException(e);
+        }
+        return frame.toByteArray();
+    }
+
+    // Never blocks: frames are queued and each subscriber's writer drains its own queue
+    private void broadcast(byte[] frame, long version) {
+        for (Subscriber s : subscribers) {
+            if (!s.offer(frame, version)) {
+                subscribers.remove(s);
+                s.close();
+            }
+        }
+    }
+
+    private final class Subscriber {
+        private final HttpExchange exchange;
+        private final OutputStream out;
+        private final BlockingQueue<Frame> pending = new ArrayBlockingQueue<>(MAX_PENDING_FRAMES);
+        private volatile boolean closed;
+        private Thread writer;
+
+        Subscriber(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.out = exchange.getResponseBody();
+        }
+
+        // False when the stream is closed or so far behind that its queue is full
+        boolean offer(byte[] frame, long version) {
+            return !closed && pending.offer(new Frame(frame, version));
+        }
+
+        // Writes the snapshot, then every queued frame newer than it, until the stream closes
+        synchronized void start(long snapshotVersion, byte[]... snapshot) {
+            if (closed) return;
+            writer = Thread.ofVirtual().name("SynM-EventStream-Writer").start(() -> {
+                try {
+                    write(snapshot);
+                    while (!closed) {
+                        Frame frame = pending.take();
+                        if (frame.version() <= snapshotVersion) continue;
+                        write(frame.bytes());
+                    }
+                } catch (IOException | InterruptedException e) {
+                    // Client went away, fell behind, or the stream is shutting down
+                } finally {
+                    subscribers.remove(this);
+                    closed = true;
+                    release();
+                }
+            });
+        }
+
+        private void write(byte[]... parts) throws IOException {
+            for (byte[] part : parts) out.write(part);
+            out.flush();
+        }
+
+        // Safe from any thread: a running writer is interrupted and closes the exchange itself,
+        // so the caller never blocks on a client that has stopped reading
+        void close() {
+            Thread running;
+            synchronized (this) {
+                if (closed) return;
+                closed = true;
+                running = writer;
+            }
+            if (running != null) {
+                running.interrupt();
+            } else {
+                release();
+            }
+        }
+
+        private void release() {
+            try { out.close(); } catch (IOException ignored) {}
+            exchange.close();
+        }
+    }
+
+    private record Frame(byte[] bytes, long version) {}
+}
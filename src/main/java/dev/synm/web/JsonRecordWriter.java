@@ -0,0 +1,56 @@
+package dev.synm.web;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import dev.synm.player.PlayerField;
+import dev.synm.player.RecordWriter;
+
+/**
+ * JSON encoding of player responses. Keys are the fields' JSON names, so the
+ * output is what the portal has always received. The compact variant leaves
+ * out derived fields for clients that resolve item ids against /api/items.
+ */
+class JsonRecordWriter implements RecordWriter {
+    private final JsonWriter out;
+    private final boolean compact;
+    private boolean skipValue;
+
+    JsonRecordWriter(JsonWriter out) {
+        this(out, false);
+    }
+
+    JsonRecordWriter(JsonWriter out, boolean compact) {
+        this.out = out;
+        this.compact = compact;
+        // Same output as Gson#toJson: null members are left out
+        out.setSerializeNulls(false);
+    }
+
+    @Override public RecordWriter beginObject() throws IOException { out.beginObject(); return this; }
+    @Override public RecordWriter endObject() throws IOException { out.endObject(); return this; }
+    @Override public RecordWriter beginArray() throws IOException { out.beginArray(); return this; }
+    @Override public RecordWriter endArray() throws IOException { out.endArray(); return this; }
+    // Derived fields are scalars, so skipping one is skipping the next value call
+    @Override public RecordWriter name(PlayerField field) throws IOException {
+        skipValue = compact && field.derived();
+        if (!skipValue) out.name(field.jsonName());
+        return this;
+    }
+    @Override public RecordWriter value(String value) throws IOException { if (!skip()) out.value(value); return this; }
+    @Override public RecordWriter value(long value) throws IOException { if (!skip()) out.value(value); return this; }
+    @Override public RecordWriter value(double value) throws IOException { if (!skip()) out.value(value); return this; }
+    // Boxed so floats print as written (0.6, not 0.6000000238418579)
+    @Override public RecordWriter value(float value) throws IOException { if (!skip()) out.value(Float.valueOf(value)); return this; }
+    @Override public RecordWriter value(boolean value) throws IOException { if (!skip()) out.value(value); return this; }
+    @Override public RecordWriter value(UUID value) throws IOException { if (!skip()) out.value(value != null ? value.toString() : null); return this; }
+    @Override public RecordWriter nullValue() throws IOException { if (!skip()) out.nullValue(); return this; }
+
+    private boolean skip() {
+        boolean skip = skipValue;
+        skipValue = false;
+        return skip;
+    }
+}
@@ -0,0 +1,91 @@
+package dev.synm.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serialized response bodies keyed by snapshot version. A body is rendered
+ * straight into bytes at most once per version; the ETag is a hash of those
+ * bytes, so a republished but unchanged roster keeps the same tag and still
+ * answers 304.
+ */
+class ResponseCache<K> {
+    private final Map<K, Entry> entries;
+
+    // Unbounded; for keys drawn from a small fixed set (encodings, players)
+    ResponseCache() {
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    // Keeps the most recently used maxEntries, for keys clients choose freely such as query strings
+    ResponseCache(int maxEntries) {
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    Entry get(K key, long version, Renderer renderer) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version() >= version) {
+            return entry;
+        }
+        // Size the buffer from the previous body so large rosters don't regrow it step by step
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(entry != null ? entry.body().length + 1024 : 8192);
+        try {
+            renderer.render(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] body = buffer.toByteArray();
+        Entry fresh = new Entry(version, body, etagFor(body));
+        entries.put(key, fresh);
+        return fresh;
+    }
+
+    // Drop entries older than the given version (e.g. detail views of players that left the roster)
+    void evictOlderThan(long version) {
+        entries.values().removeIf(e -> e.version() < version);
+    }
+
+    static String etagFor(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            StringBuilder sb = new StringBuilder(34).append('"');
+            for (int i = 0; i < 16; i++) sb.append(String.format("%02x", digest[i]));
+            return sb.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256; fall back to length + hash just in case
+            return "\"" + body.length + "-" + Integer.toHexString(java.util.Arrays.hashCode(body)) + "\"";
+        }
+    }
+
+    // True if the request's If-None-Match header lists this entry's tag (or "*")
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) return true;
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    record Entry(long version, byte[] body, String etag) {}
+
+    @FunctionalInterface
+    interface Renderer {
+        void render(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,157 @@
+package dev.synm.web;
+
+import net.fabricmc.loader.api.FabricLoader;
+import net.fabricmc.loader.api.ModContainer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Portal files read once at startup and kept in memory, each with a
+ * precomputed gzip variant when that is smaller. Serving an asset is a map
+ * lookup. Brotli is not offered: there is no pure-Java encoder on the
+ * classpath and gzip already covers every browser.
+ *
+ * Only top-level web files, anything under web/ and the mod's own
+ * assets/synm/ (e.g. icon.png) are served, never classes or mod metadata.
+ *
+ * The portal is a single-file build, so there are no content-hashed names to
+ * cache forever: every asset is served no-cache and revalidated by ETag.
+ */
+class StaticAssets {
+    private static final String ROOT_DIR = "web/";
+    // Served under its classpath path, as before assets were preloaded
+    private static final String MOD_ASSETS_DIR = "assets/" + dev.synm.SynM.MOD_ID + "/";
+    private static final int MIN_GZIP_BYTES = 256;
+
+    private final Map<String, Asset> assets;
+    private final Asset index;
+
+    private StaticAssets(Map<String, Asset> assets) {
+        this.assets = Map.copyOf(assets);
+        this.index = assets.get("/index.html");
+    }
+
+    static StaticAssets load() {
+        Map<String, Asset> assets = new HashMap<>();
+        ModContainer mod = FabricLoader.getInstance().getModContainer(dev.synm.SynM.MOD_ID).orElse(null);
+        if (mod != null) {
+            for (Path root : mod.getRootPaths()) {
+                try (Stream<Path> files = Files.walk(root)) {
+                    files.filter(Files::isRegularFile).forEach(file -> {
+                        String name = root.relativize(file).toString().replace('\\', '/');
+                        if (!isWebAsset(name)) return;
+                        String path = "/" + (name.startsWith(ROOT_DIR) ? name.substring(ROOT_DIR.length()) : name);
+                        try {
+                            assets.putIfAbsent(path, Asset.of(path, Files.readAllBytes(file)));
+                        } catch (IOException e) {
+                            dev.synm.SynM.LOGGER.error("Failed to read web asset {}", file, e);
+                        }
+                    });
+                } catch (IOException e) {
+                    dev.synm.SynM.LOGGER.error("Failed to scan web assets in {}", root, e);
+                }
+            }
+        }
+        if (!assets.containsKey("/index.html")) {
+            // Not running from a mod container (or index.html lives elsewhere on the classpath)
+            try (InputStream is = StaticAssets.class.getResourceAsStream("/index.html")) {
+                if (is != null) assets.put("/index.html", Asset.of("/index.html", is.readAllBytes()));
+            } catch (IOException e) {
+                dev.synm.SynM.LOGGER.error("Failed to load index.html", e);
+            }
+        }
+        dev.synm.SynM.LOGGER.info("Loaded {} web assets", assets.size());
+        return new StaticAssets(assets);
+    }
+
+    private static boolean isWebAsset(String name) {
+        if (name.startsWith(ROOT_DIR)) return true;
+        if (name.startsWith(MOD_ASSETS_DIR)) return !contentTypeFor(name).equals("application/octet-stream");
+        if (name.indexOf('/') >= 0) return false;
+        String type = contentTypeFor(name);
+        return !type.equals("application/octet-stream") && !type.equals("application/json");
+    }
+
+    Asset get(String path) {
+        return assets.get(path);
+    }
+
+    // SPA fallback for client-side routes
+    Asset index() {
+        return index;
+    }
+
+    static String contentTypeFor(String path) {
+        String p = path.toLowerCase();
+        if (p.endsWith(".html")) return "text/html; charset=UTF-8";
+        if (p.endsWith(".js")) return "application/javascript";
+        if (p.endsWith(".css")) return "text/css";
+        if (p.endsWith(".json")) return "application/json";
+        if (p.endsWith(".svg")) return "image/svg+xml";
+        if (p.endsWith(".png")) return "image/png";
+        if (p.endsWith(".jpg") || p.endsWith(".jpeg")) return "image/jpeg";
+        if (p.endsWith(".ico")) return "image/x-icon";
+        return "application/octet-stream";
+    }
+
+    // True if the Accept-Encoding header allows gzip. Every entry is read: an explicit gzip
+    // weight wins over "*", and a zero (or unparseable) weight refuses.
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        double gzip = -1, any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String coding = params[0].trim();
+            boolean isGzip = coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip");
+            if (!isGzip && !coding.equals("*")) continue;
+            double q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String p = params[i].trim();
+                if (p.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(p.substring(2));
+                    } catch (NumberFormatException ignored) {
+                        q = 0;
+                    }
+                }
+            }
+            if (isGzip) gzip = q; else any = q;
+        }
+        return gzip >= 0 ? gzip > 0 : any > 0;
+    }
+
+    record Asset(String contentType, byte[] body, String etag, byte[] gzip, String gzipEtag) {
+        static Asset of(String path, byte[] body) {
+            String type = contentTypeFor(path);
+            String etag = ResponseCache.etagFor(body);
+            byte[] gzip = compressible(type) && body.length >= MIN_GZIP_BYTES ? gzip(body) : null;
+            if (gzip != null && gzip.length >= body.length) gzip = null;
+            String gzipEtag = gzip != null ? etag.substring(0, etag.length() - 1) + "-gz\"" : null;
+            return new Asset(type, body, etag, gzip, gzipEtag);
+        }
+
+        private static boolean compressible(String type) {
+            return type.startsWith("text/") || type.equals("application/javascript")
+                || type.equals("application/json") || type.equals("image/svg+xml");
+        }
+
+        private static byte[] gzip(byte[] body) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 3);
+            try (GZIPOutputStream gz = new GZIPOutputStream(out) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+                gz.write(body);
+            } catch (IOException e) {
+                return null;
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package dev.synm.web;
 
+import com.sun.net.httpserver.Filter;
 import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
@@ -12,47 +13,120 @@ import java.io.OutputStream;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.util.UUID;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+import dev.synm.config.SynMConfig;
+import dev.synm.database.AuditLog;
+import dev.synm.database.H2EventStore;
+import dev.synm.database.PlayerEvent;
+import dev.synm.metrics.Counter;
+import dev.synm.metrics.Histogram;
+import dev.synm.metrics.Metrics;
+import dev.synm.metrics.ServerPerfSampler;
+import dev.synm.player.ItemDictionary;
+import dev.synm.player.PlayerField;
 import dev.synm.player.PlayerManager;
+import dev.synm.player.PlayerQuery;
+import dev.synm.player.RecordWriter;
 
 public class WebServer {
+    // Upper bound on targets in one /api/action/batch request
+    private static final int MAX_BATCH_TARGETS = 1000;
+    // Distinct filtered /api/players responses kept per roster version
+    private static final int QUERY_CACHE_ENTRIES = 256;
     private int port;
     private final PlayerManager playerManager;
     private final MinecraftServer server;
+    private final SynMConfig config;
     private HttpServer httpServer;
+    private ExecutorService httpExecutor;
+    // Caps concurrent requests so bursts queue in the client, not in server threads
+    private final Semaphore inFlight;
     // Simple API key auth
     private String authKey;
     private final java.nio.file.Path authKeyFile = java.nio.file.Paths.get("synm_api_key.txt");
+    // Serialized API bodies, rebuilt only when the roster snapshot version changes
+    private final ResponseCache<String> playersCache = new ResponseCache<>();
+    private final ResponseCache<String> playerCache = new ResponseCache<>();
+    private volatile long playerCacheVersion;
+    // Keyed by raw query string, so bounded: any client can mint new keys within one version
+    private final ResponseCache<String> queryCache = new ResponseCache<>(QUERY_CACHE_ENTRIES);
+    private volatile long queryCacheVersion;
+    // Item dictionary pages, versioned by dictionary size
+    private final ResponseCache<String> itemsCache = new ResponseCache<>();
+    private volatile long itemsCacheVersion;
+    // Analytics documents, re-read from the rollups at most once a minute per query
+    private final ResponseCache<String> analyticsCache = new ResponseCache<>();
+    private volatile long analyticsCacheVersion;
+    // Performance documents, re-rendered once per sampler sample
+    private final ResponseCache<Integer> perfCache = new ResponseCache<>();
+    // Portal files, loaded once
+    private final StaticAssets staticAssets;
+    // Served when the jar has no index.html (e.g. frontend not built)
+    private static final String FALLBACK_PAGE = "<!DOCTYPE html><html><head><title>SynM</title></head><body>" +
+        "<h1>SynM Server Management Portal</h1>" +
+        "<p>Error loading interface. Check server logs.</p>" +
+        "</body></html>";
+    private final byte[] schema = renderSchema();
+    // Push stream of roster deltas for open dashboards
+    private final EventStream eventStream;
+    // Actions queued for the server thread, with their results
+    private final ActionTracker actionTracker;
+    // Hash-chained record of every admin action and who asked for it
+    private final AuditLog auditLog = new AuditLog(java.nio.file.Paths.get("synm_audit.log"));
     
-    public WebServer(int port, PlayerManager playerManager, MinecraftServer server) {
+    public WebServer(int port, PlayerManager playerManager, MinecraftServer server, SynMConfig config) {
         this.port = port;
         this.playerManager = playerManager;
         this.server = server;
+        this.config = config;
+        this.inFlight = new Semaphore(config.httpMaxInFlight);
+        this.staticAssets = StaticAssets.load();
+        this.eventStream = new EventStream(playerManager, roster -> {
+            ResponseCache.Renderer renderer = render(Encoding.JSON, out -> playerManager.writePlayers(roster, out));
+            ResponseCache.Entry cached = playersCache.get(Encoding.JSON.name(), roster.version(), renderer);
+            if (cached.version() == roster.version()) return cached.body();
+            // A newer roster was cached meanwhile; the stream's snapshot must match the version it announces
+            java.io.ByteArrayOutputStream buffer = new java.io.ByteArrayOutputStream(cached.body().length + 1024);
+            try {
+                renderer.render(buffer);
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+            return buffer.toByteArray();
+        });
+        this.actionTracker = new ActionTracker(server, op -> eventStream.publish("action", op.toJson()));
     }
     
     public void start() {
+        // Before binding, so the fallback port below is audited too
+        openAuditLog();
         try {
             httpServer = HttpServer.create(new InetSocketAddress(port), 0);
             
             // Load existing auth key if present
             loadAuthKey();
 
-            // Static content
-            httpServer.createContext("/", new StaticHandler());
+            createContexts();
             
-            // API endpoints
-            httpServer.createContext("/api/players", new PlayersHandler());
-            httpServer.createContext("/api/player/", new PlayerHandler());
-            httpServer.createContext("/api/action/", new ActionHandler());
-            // Auth endpoints
-            httpServer.createContext("/api/auth/status", new AuthStatusHandler());
-            httpServer.createContext("/api/auth/init", new AuthInitHandler());
-            
-            httpServer.setExecutor(Executors.newFixedThreadPool(10));
+            httpServer.setExecutor(httpExecutor = createExecutor());
             httpServer.start();
+            eventStream.start();
             
             dev.synm.SynM.LOGGER.info("SynM web server started on port {} - Access at http://localhost:{}", port, port);
             
@@ -76,16 +150,11 @@ public class WebServer {
                     this.port = 4445; // Update port number
                     
                     // Re-setup contexts
-                    httpServer.createContext("/", new StaticHandler());
-                    httpServer.createContext("/api/players", new PlayersHandler());
-                    httpServer.createContext("/api/player/", new PlayerHandler());
-                    httpServer.createContext("/api/action/", new ActionHandler());
-                    // Auth endpoints on fallback too
-                    httpServer.createContext("/api/auth/status", new AuthStatusHandler());
-                    httpServer.createContext("/api/auth/init", new AuthInitHandler());
+                    createContexts();
                     
-                    httpServer.setExecutor(Executors.newFixedThreadPool(10));
+                    httpServer.setExecutor(httpExecutor = createExecutor());
                     httpServer.start();
+                    eventStream.start();
                     
                     dev.synm.SynM.LOGGER.info("SynM web server started on alternative port {} - Access at http://localhost:{}", port, port);
                 } catch (IOException e2) {
@@ -95,34 +164,206 @@ public class WebServer {
         }
     }
     
+    private void createContexts() {
+        // Static content
+        createContext("/", new StaticHandler());
+        
+        // API endpoints
+        createContext("/api/players", new PlayersHandler());
+        createContext("/api/player/", new PlayerHandler());
+        createContext("/api/action/", new ActionHandler());
+        createContext("/api/items", new ItemsHandler());
+        createContext("/api/analytics", new AnalyticsHandler());
+        createContext("/api/history", new HistoryHandler());
+        createContext("/api/audit", new AuditHandler());
+        createContext("/api/server/perf", new ServerPerfHandler());
+        createContext("/api/schema", exchange -> {
+            if (!"GET".equals(exchange.getRequestMethod())) { exchange.sendResponseHeaders(405, -1); return; }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, schema.length);
+            try (OutputStream os = exchange.getResponseBody()) { os.write(schema); }
+        });
+        createContext("/api/stream", exchange -> {
+            if (!isAuthorized(exchange)) { sendUnauthorized(exchange); return; }
+            eventStream.handle(exchange);
+        });
+        // Auth endpoints
+        createContext("/api/auth/status", new AuthStatusHandler());
+        createContext("/api/auth/init", new AuthInitHandler());
+        // Self-metrics: Prometheus text for scrapers, JSON for the portal
+        createContext("/metrics", new MetricsHandler(false));
+        createContext("/api/metrics", new MetricsHandler(true));
+        Metrics.gauge("synm_http_in_flight", "Web portal requests being handled",
+            () -> config.httpMaxInFlight - inFlight.availablePermits());
+    }
+
+    private void createContext(String path, HttpHandler handler) {
+        List<Filter> filters = httpServer.createContext(path, handler).getFilters();
+        filters.add(new MetricsFilter(path));
+        filters.add(admissionFilter);
+    }
+
+    // Per-handler latency and response bytes. Outermost, so rejected requests count too.
+    private static final class MetricsFilter extends Filter {
+        private final Histogram latency;
+        private final Counter bytes;
+
+        MetricsFilter(String path) {
+            String handler = "/".equals(path) ? "static" : path.replaceFirst("^/(api/)?", "").replaceAll("/$", "").replace('/', '_');
+            // An open event stream lives for minutes; its duration says nothing about cost
+            this.latency = "/api/stream".equals(path) ? null : Metrics.httpRequest(handler);
+            this.bytes = Metrics.httpResponseBytes(handler);
+        }
+
+        @Override
+        public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+            long started = System.nanoTime();
+            exchange.setStreams(null, new CountingOutputStream(exchange.getResponseBody(), bytes));
+            try {
+                chain.doFilter(exchange);
+            } finally {
+                if (latency != null) latency.record(System.nanoTime() - started);
+            }
+        }
+
+        @Override
+        public String description() {
+            return "SynM request metrics";
+        }
+    }
+
+    private static final class CountingOutputStream extends java.io.FilterOutputStream {
+        private final Counter bytes;
+
+        CountingOutputStream(OutputStream out, Counter bytes) {
+            super(out);
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytes.add(1);
+        }
+
+        // FilterOutputStream would otherwise write byte by byte
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytes.add(len);
+        }
+    }
+
+    private ExecutorService createExecutor() {
+        if ("fixed".equals(config.httpExecutor)) {
+            java.util.concurrent.atomic.AtomicInteger n = new java.util.concurrent.atomic.AtomicInteger();
+            return Executors.newFixedThreadPool(config.httpThreads, r -> {
+                Thread t = new Thread(r, "SynM-Http-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("SynM-Http-", 0).factory());
+    }
+
+    // Rejects with 503 once httpMaxInFlight requests are being handled. An open event
+    // stream only holds a permit until its handler returns.
+    private final Filter admissionFilter = new Filter() {
+        @Override
+        public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+            if (!inFlight.tryAcquire()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, 503, "overloaded");
+                return;
+            }
+            try {
+                chain.doFilter(exchange);
+            } finally {
+                inFlight.release();
+            }
+        }
+
+        @Override
+        public String description() {
+            return "SynM in-flight request limit";
+        }
+    };
+    
+    private void openAuditLog() {
+        try {
+            auditLog.open();
+        } catch (IOException e) {
+            dev.synm.SynM.LOGGER.error("Failed to open audit log; admin actions will not be audited", e);
+        }
+    }
+
     public void stop() {
+        eventStream.stop();
         if (httpServer != null) {
             httpServer.stop(0);
+            httpServer = null;
             dev.synm.SynM.LOGGER.info("Web server stopped");
         }
+        if (httpExecutor != null) {
+            // Let in-flight requests finish, then drop anything left so no threads outlive the server
+            httpExecutor.shutdown();
+            try {
+                if (!httpExecutor.awaitTermination(2, TimeUnit.SECONDS)) httpExecutor.shutdownNow();
+            } catch (InterruptedException e) {
+                httpExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            httpExecutor = null;
+        }
+        // After the executor, so actions that finished during shutdown are still written
+        auditLog.close();
     }
     
     private class StaticHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            boolean head = "HEAD".equals(method);
+            if (!head && !"GET".equals(method)) { exchange.sendResponseHeaders(405, -1); return; }
             String path = exchange.getRequestURI().getPath();
             if (path.equals("/")) path = "/index.html";
-            byte[] data = getWebAsset(path);
-            if (data == null) {
+            StaticAssets.Asset asset = staticAssets.get(path);
+            if (asset == null) {
                 // SPA fallback to index
-                data = getWebAsset("/index.html");
-                if (data == null) {
-                    data = getMainPage().getBytes("UTF-8");
+                asset = staticAssets.index();
+                if (asset == null) {
+                    byte[] data = FALLBACK_PAGE.getBytes(java.nio.charset.StandardCharsets.UTF_8);
                     exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
-                } else {
-                    exchange.getResponseHeaders().set("Content-Type", contentTypeFor(".html"));
+                    exchange.sendResponseHeaders(200, data.length);
+                    try (OutputStream os = exchange.getResponseBody()) { os.write(data); }
+                    return;
                 }
-            } else {
-                exchange.getResponseHeaders().set("Content-Type", contentTypeFor(path));
             }
-            exchange.sendResponseHeaders(200, data.length);
+
+            boolean gzip = asset.gzip() != null
+                && StaticAssets.acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            String etag = gzip ? asset.gzipEtag() : asset.etag();
+            byte[] body = gzip ? asset.gzip() : asset.body();
+            exchange.getResponseHeaders().set("Content-Type", asset.contentType());
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (asset.gzip() != null) exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            if (ResponseCache.matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            if (gzip) exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            if (head) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(body.length));
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
             try (OutputStream os = exchange.getResponseBody()) {
-                os.write(data);
+                os.write(body);
             }
         }
     }
@@ -132,13 +373,28 @@ public class WebServer {
         public void handle(HttpExchange exchange) throws IOException {
             if ("GET".equals(exchange.getRequestMethod())) {
                 if (!isAuthorized(exchange)) { sendUnauthorized(exchange); return; }
-                String response = playerManager.getPlayersJson();
-                exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-                exchange.sendResponseHeaders(200, response.getBytes("UTF-8").length);
-                try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(response.getBytes("UTF-8"));
+                long version = playerManager.getSnapshotVersion();
+                Encoding encoding = negotiate(exchange);
+                String rawQuery = exchange.getRequestURI().getRawQuery();
+                if (rawQuery == null || rawQuery.isEmpty()) {
+                    // Legacy full roster used by the dashboard
+                    sendCached(exchange, encoding,
+                        playersCache.get(encoding.name(), version, render(encoding, playerManager::writePlayers)));
+                    return;
                 }
+                PlayerQuery query;
+                try {
+                    query = PlayerQuery.parse(parseQuery(rawQuery));
+                } catch (IllegalArgumentException e) {
+                    sendError(exchange, 400, "bad_query");
+                    return;
+                }
+                if (version != queryCacheVersion) {
+                    queryCacheVersion = version;
+                    queryCache.evictOlderThan(version);
+                }
+                sendCached(exchange, encoding, queryCache.get(encoding.name() + ":" + rawQuery, version,
+                    render(encoding, out -> playerManager.writeQuery(query, out))));
             } else {
                 exchange.sendResponseHeaders(405, -1);
             }
@@ -155,13 +411,14 @@ public class WebServer {
                 
                 try {
                     UUID uuid = UUID.fromString(uuidStr);
-                    String response = playerManager.getPlayerJson(uuid);
-                    exchange.getResponseHeaders().set("Content-Type", "application/json");
-                    exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-                    exchange.sendResponseHeaders(200, response.getBytes("UTF-8").length);
-                    try (OutputStream os = exchange.getResponseBody()) {
-                        os.write(response.getBytes("UTF-8"));
+                    long version = playerManager.getSnapshotVersion();
+                    if (version != playerCacheVersion) {
+                        playerCacheVersion = version;
+                        playerCache.evictOlderThan(version);
                     }
+                    Encoding encoding = negotiate(exchange);
+                    sendCached(exchange, encoding, playerCache.get(encoding.name() + ":" + uuid, version,
+                        render(encoding, out -> playerManager.writePlayer(uuid, out))));
                 } catch (IllegalArgumentException e) {
                     exchange.sendResponseHeaders(400, -1);
                 }
@@ -171,16 +428,262 @@ public class WebServer {
         }
     }
     
+    // GET /api/items[?since=N]: item dictionary entries with id >= N, for resolving "item" ids
+    private class ItemsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) { exchange.sendResponseHeaders(405, -1); return; }
+            if (!isAuthorized(exchange)) { sendUnauthorized(exchange); return; }
+            int since;
+            try {
+                since = Math.max(0, Integer.parseInt(parseQuery(exchange.getRequestURI().getRawQuery()).getOrDefault("since", "0")));
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "bad_query");
+                return;
+            }
+            ItemDictionary dictionary = ItemDictionary.shared();
+            int size = dictionary.size();
+            if (size != itemsCacheVersion) {
+                itemsCacheVersion = size;
+                itemsCache.evictOlderThan(size);
+            }
+            sendCached(exchange, Encoding.JSON, itemsCache.get(String.valueOf(since), size, out -> {
+                JsonWriter writer = new JsonWriter(new java.io.BufferedWriter(
+                    new java.io.OutputStreamWriter(out, java.nio.charset.StandardCharsets.UTF_8), 8192));
+                writer.beginObject();
+                writer.name("size").value(size);
+                writer.name("items").beginArray();
+                for (int id = since; id < size; id++) {
+                    writer.beginObject();
+                    writer.name("id").value(id);
+                    writer.name("itemId").value(dictionary.itemId(id));
+                    writer.name("displayName").value(dictionary.displayName(id));
+                    writer.endObject();
+                }
+                writer.endArray();
+                writer.endObject();
+                writer.flush();
+            }));
+        }
+    }
+
+    // GET /api/analytics[?days=N][&player=uuid]: concurrency, peak hours, unique players, retention, playtime trends
+    private class AnalyticsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) { exchange.sendResponseHeaders(405, -1); return; }
+            if (!isAuthorized(exchange)) { sendUnauthorized(exchange); return; }
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            int days;
+            UUID player;
+            try {
+                days = Integer.parseInt(params.getOrDefault("days", "7"));
+                player = params.containsKey("player") ? UUID.fromString(params.get("player")) : null;
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, "bad_query");
+                return;
+            }
+            long minute = System.currentTimeMillis() / 60_000L;
+            if (minute != analyticsCacheVersion) {
+                analyticsCacheVersion = minute;
+                analyticsCache.evictOlderThan(minute);
+            }
+            sendCached(exchange, Encoding.JSON, analyticsCache.get(days + ":" + player, minute, out -> {
+                JsonWriter writer = new JsonWriter(new java.io.BufferedWriter(
+                    new java.io.OutputStreamWriter(out, java.nio.charset.StandardCharsets.UTF_8), 8192));
+                playerManager.writeAnalytics(writer, days, player);
+                writer.flush();
+            }));
+        }
+    }
+
+    // GET /api/history?uuid=&type=&from=&to=&limit=: logged events, newest first, from the h2 event store
+    private class HistoryHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) { exchange.sendResponseHeaders(405, -1); return; }
+            if (!isAuthorized(exchange)) { sendUnauthorized(exchange); return; }
+            H2EventStore store = dev.synm.SynM.getEventStore();
+            if (store == null) { sendError(exchange, 503, "history_disabled"); return; }
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            UUID uuid;
+            PlayerEvent.Type type;
+            long from, to;
+            int limit;
+            try {
+                uuid = params.containsKey("uuid") ? UUID.fromString(params.get("uuid")) : null;
+                type = params.containsKey("type") ? PlayerEvent.Type.valueOf(params.get("type").toUpperCase(java.util.Locale.ROOT)) : null;
+                from = Long.parseLong(params.getOrDefault("from", "0"));
+                to = params.containsKey("to") ? Long.parseLong(params.get("to")) : Long.MAX_VALUE;
+                limit = Integer.parseInt(params.getOrDefault("limit", "100"));
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, "bad_query");
+                return;
+            }
+            List<PlayerEvent> events;
+            try {
+                events = store.query(uuid, type, from, to, limit);
+            } catch (java.sql.SQLException e) {
+                dev.synm.SynM.LOGGER.error("History query failed", e);
+                sendError(exchange, 503, "history_unavailable");
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            exchange.sendResponseHeaders(200, 0);
+            try (JsonWriter writer = new JsonWriter(new java.io.BufferedWriter(
+                    new java.io.OutputStreamWriter(exchange.getResponseBody(), java.nio.charset.StandardCharsets.UTF_8), 8192))) {
+                writer.setSerializeNulls(false);
+                writer.beginObject();
+                writer.name("events").beginArray();
+                for (PlayerEvent event : events) {
+                    writer.beginObject();
+                    writer.name("time").value(event.time());
+                    writer.name("type").value(event.type().name());
+                    writer.name("uuid").value(event.uuid().toString());
+                    writer.name("username").value(event.username());
+                    if (event.hasPosition()) {
+                        writer.name("world").value(event.world());
+                        writer.name("x").value(event.x());
+                        writer.name("y").value(event.y());
+                        writer.name("z").value(event.z());
+                    }
+                    writer.name("detail").value(event.detail());
+                    writer.name("reason").value(event.reason());
+                    writer.endObject();
+                }
+                writer.endArray();
+                // A full page: ask again with to=<oldest time> for the next one
+                if (events.size() >= Math.min(limit, H2EventStore.MAX_LIMIT) && !events.isEmpty()) {
+                    writer.name("nextTo").value(events.get(events.size() - 1).time());
+                }
+                writer.endObject();
+            }
+        }
+    }
+
+    // GET /api/audit?target=&from=&to=&limit=: audited admin actions, newest first
+    // GET /api/audit/verify: re-check the whole hash chain
+    private class AuditHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) { exchange.sendResponseHeaders(405, -1); return; }
+            if (!isAuthorized(exchange)) { sendUnauthorized(exchange); return; }
+            if ("/api/audit/verify".equals(exchange.getRequestURI().getPath())) {
+                AuditLog.Verification v = auditLog.verify();
+                JsonObject body = new JsonObject();
+                body.addProperty("entries", v.entries());
+                body.addProperty("valid", v.valid());
+                if (!v.valid()) body.addProperty("firstBrokenSeq", v.firstBrokenSeq());
+                body.addProperty("lastHash", v.lastHash());
+                sendJson(exchange, 200, body);
+                return;
+            }
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            UUID target;
+            long from, to;
+            int limit;
+            try {
+                target = params.containsKey("target") ? UUID.fromString(params.get("target")) : null;
+                from = Long.parseLong(params.getOrDefault("from", "0"));
+                to = params.containsKey("to") ? Long.parseLong(params.get("to")) : Long.MAX_VALUE;
+                limit = Integer.parseInt(params.getOrDefault("limit", "100"));
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, "bad_query");
+                return;
+            }
+            List<String> entries = auditLog.query(target, from, to, limit);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            exchange.sendResponseHeaders(200, 0);
+            try (JsonWriter writer = new JsonWriter(new java.io.BufferedWriter(
+                    new java.io.OutputStreamWriter(exchange.getResponseBody(), java.nio.charset.StandardCharsets.UTF_8), 8192))) {
+                writer.beginObject();
+                // Stored lines are passed through byte for byte so clients can re-check their hashes
+                writer.name("entries").beginArray();
+                for (String entry : entries) writer.jsonValue(entry);
+                writer.endArray();
+                // A full page: ask again with to=<oldest time> for the next one
+                if (entries.size() >= Math.min(limit, AuditLog.MAX_LIMIT) && !entries.isEmpty()) {
+                    writer.name("nextTo").value(JsonParser.parseString(entries.get(entries.size() - 1))
+                        .getAsJsonObject().get("time").getAsLong());
+                }
+                writer.endObject();
+            }
+        }
+    }
+
+    // GET /api/server/perf[?history=minutes]: TPS/MSPT, per-world chunks and entities, heap/GC, threads, history
+    private class ServerPerfHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) { exchange.sendResponseHeaders(405, -1); return; }
+            if (!isAuthorized(exchange)) { sendUnauthorized(exchange); return; }
+            ServerPerfSampler sampler = dev.synm.SynM.getPerfSampler();
+            if (sampler == null) { sendError(exchange, 503, "perf_unavailable"); return; }
+            int minutes;
+            try {
+                minutes = Math.max(0, Math.min(config.perfHistoryMinutes,
+                    Integer.parseInt(parseQuery(exchange.getRequestURI().getRawQuery()).getOrDefault("history", "60"))));
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "bad_query");
+                return;
+            }
+            sendCached(exchange, Encoding.JSON, perfCache.get(minutes, sampler.version(), out -> {
+                JsonWriter writer = new JsonWriter(new java.io.BufferedWriter(
+                    new java.io.OutputStreamWriter(out, java.nio.charset.StandardCharsets.UTF_8), 8192));
+                sampler.write(writer, minutes);
+                writer.flush();
+            }));
+        }
+    }
+
+    // GET /metrics (Prometheus text) or /api/metrics (JSON): what SynM itself is costing the server
+    private class MetricsHandler implements HttpHandler {
+        private final boolean json;
+
+        MetricsHandler(boolean json) {
+            this.json = json;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) { exchange.sendResponseHeaders(405, -1); return; }
+            if ((json || config.metricsRequireAuth) && !isAuthorized(exchange)) { sendUnauthorized(exchange); return; }
+            exchange.getResponseHeaders().set("Content-Type", json ? "application/json" : "text/plain; version=0.0.4; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            if (json) exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            exchange.sendResponseHeaders(200, 0);
+            try (java.io.Writer out = new java.io.BufferedWriter(
+                    new java.io.OutputStreamWriter(exchange.getResponseBody(), java.nio.charset.StandardCharsets.UTF_8), 8192)) {
+                if (json) {
+                    JsonWriter writer = new JsonWriter(out);
+                    Metrics.writeJson(writer);
+                    writer.flush();
+                } else {
+                    Metrics.writePrometheus(out);
+                }
+            }
+        }
+    }
+
     private class ActionHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            if ("POST".equals(exchange.getRequestMethod())) {
+            if ("GET".equals(exchange.getRequestMethod())) {
+                if (!isAuthorized(exchange)) { sendUnauthorized(exchange); return; }
+                handleStatus(exchange);
+            } else if ("POST".equals(exchange.getRequestMethod())) {
                 if (!isAuthorized(exchange)) { sendUnauthorized(exchange); return; }
                 String path = exchange.getRequestURI().getPath();
                 String[] parts = path.split("/");
                 
                 if (parts.length >= 4) {
                     String action = parts[3];
+                    if ("batch".equals(action)) {
+                        handleBatch(exchange);
+                        return;
+                    }
                     
                     // Read request body
                     Map<String, String> params = parseFormData(exchange);
@@ -189,15 +692,7 @@ public class WebServer {
                     if (uuidStr != null) {
                         try {
                             UUID uuid = UUID.fromString(uuidStr);
-                            boolean success = handleAction(action, uuid, params);
-                            
-                            String response = success ? "{\"success\": true}" : "{\"success\": false}";
-                            exchange.getResponseHeaders().set("Content-Type", "application/json");
-                            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-                            exchange.sendResponseHeaders(200, response.getBytes("UTF-8").length);
-                            try (OutputStream os = exchange.getResponseBody()) {
-                                os.write(response.getBytes("UTF-8"));
-                            }
+                            sendOperation(exchange, handleAction(action, uuid, params, actor(exchange)));
                         } catch (IllegalArgumentException e) {
                             exchange.sendResponseHeaders(400, -1);
                         }
@@ -234,113 +729,249 @@ public class WebServer {
             return params;
         }
         
-        private boolean handleAction(String action, UUID uuid, Map<String, String> params) {
-            server.execute(() -> {
-                switch (action) {
-                    case "heal":
-                        playerManager.healPlayer(uuid);
-                        break;
-                    case "feed":
-                        playerManager.feedPlayer(uuid);
-                        break;
-                    case "creative":
-                        playerManager.setPlayerGameMode(uuid, GameMode.CREATIVE);
-                        break;
-                    case "survival":
-                        playerManager.setPlayerGameMode(uuid, GameMode.SURVIVAL);
-                        break;
-                    case "adventure":
-                        playerManager.setPlayerGameMode(uuid, GameMode.ADVENTURE);
-                        break;
-                    case "spectator":
-                        playerManager.setPlayerGameMode(uuid, GameMode.SPECTATOR);
-                        break;
-                    case "setgamemode":
-                        String gameMode = params.getOrDefault("gamemode", "survival");
-                        playerManager.setPlayerGameModeByName(uuid, gameMode);
-                        break;
-                    case "kill":
-                        playerManager.killPlayer(uuid);
-                        break;
-                    case "removehunger":
-                        playerManager.removeHunger(uuid);
-                        break;
-                    case "clearinventory":
-                        playerManager.clearInventory(uuid);
-                        break;
-                    case "teleport":
+        private ActionTracker.Operation handleAction(String action, UUID uuid, Map<String, String> params, AuditLog.Actor actor) {
+            return actionTracker.submit(action, () -> {
+                JsonObject result = new JsonObject();
+                result.addProperty("success", runAction(action, uuid, params, actor));
+                // Publish the result at the end of this tick so the UI's follow-up read sees it
+                playerManager.requestSnapshot();
+                return result;
+            });
+        }
+
+        // GET /api/action/status/{id}: result of an action that outlived its request
+        private void handleStatus(HttpExchange exchange) throws IOException {
+            String[] parts = exchange.getRequestURI().getPath().split("/");
+            if (parts.length != 5 || !"status".equals(parts[3])) { exchange.sendResponseHeaders(405, -1); return; }
+            ActionTracker.Operation op;
+            try {
+                op = actionTracker.get(Long.parseLong(parts[4]));
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "bad_operation_id");
+                return;
+            }
+            if (op == null) { sendError(exchange, 404, "unknown_operation"); return; }
+            sendJson(exchange, 200, op.toJson());
+        }
+
+        // Wait briefly for the tick to run the action; past that, hand back the operation id
+        private void sendOperation(HttpExchange exchange, ActionTracker.Operation op) throws IOException {
+            int status = 200;
+            try {
+                op.future.get(config.actionTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                status = 202;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                status = 202;
+            } catch (ExecutionException e) {
+                dev.synm.SynM.LOGGER.error("Action {} failed", op.action, e.getCause());
+                status = 500;
+            }
+            sendJson(exchange, status, op.toJson());
+        }
+
+        // Batch: one JSON request, one server-thread task, one result per target
+        private void handleBatch(HttpExchange exchange) throws IOException {
+            List<BatchOperation> operations;
+            try (InputStream is = exchange.getRequestBody()) {
+                operations = parseBatch(new String(is.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException | IllegalStateException | com.google.gson.JsonParseException e) {
+                sendError(exchange, 400, "bad_batch");
+                return;
+            }
+            int targets = 0;
+            for (BatchOperation op : operations) targets += op.uuids().size();
+            if (targets > MAX_BATCH_TARGETS) { sendError(exchange, 413, "batch_too_large"); return; }
+            AuditLog.Actor actor = actor(exchange);
+
+            sendOperation(exchange, actionTracker.submit("batch", () -> {
+                JsonArray results = new JsonArray();
+                for (BatchOperation op : operations) {
+                    for (String target : op.uuids()) {
+                        JsonObject result = new JsonObject();
+                        result.addProperty("action", op.action());
+                        result.addProperty("uuid", target);
                         try {
-                            double x = Double.parseDouble(params.getOrDefault("x", "0"));
-                            double y = Double.parseDouble(params.getOrDefault("y", "64"));
-                            double z = Double.parseDouble(params.getOrDefault("z", "0"));
-                            playerManager.teleportPlayer(uuid, x, y, z);
-                        } catch (NumberFormatException e) {
-                            dev.synm.SynM.LOGGER.error("Invalid teleport coordinates", e);
-                        }
-                        break;
-                    case "kick":
-                        String reason = params.getOrDefault("reason", "Kicked by admin");
-                        playerManager.kickPlayer(uuid, reason);
-                        break;
-                    case "freeze":
-                        boolean freeze = Boolean.parseBoolean(params.getOrDefault("freeze", "true"));
-                        playerManager.freezePlayer(uuid, freeze);
-                        break;
-                    case "godmode":
-                        playerManager.toggleGodMode(uuid);
-                        break;
-                    case "fly":
-                        playerManager.toggleFlyMode(uuid);
-                        break;
-                    case "vanish":
-                        playerManager.toggleVanishMode(uuid);
-                        break;
-                    case "setnote":
-                        String note = params.getOrDefault("note", "");
-                        playerManager.setPlayerNote(uuid, note);
-                        break;
-                    case "effect":
-                        String effect = params.getOrDefault("effect", "speed");
-                        int duration = 60;
-                        int amplifier = 0;
-                        try { duration = Integer.parseInt(params.getOrDefault("duration", "60")); } catch (Exception ignored) {}
-                        try { amplifier = Integer.parseInt(params.getOrDefault("amplifier", "0")); } catch (Exception ignored) {}
-                        playerManager.applyEffect(uuid, effect, duration, amplifier);
-                        break;
-                    case "cleareffects":
-                        playerManager.clearEffects(uuid);
-                        break;
-                    case "broadcast":
-                        String msg = params.getOrDefault("message", "");
-                        server.execute(() -> playerManager.broadcast(java.net.URLDecoder.decode(msg, java.nio.charset.StandardCharsets.UTF_8)));
-                        break;
-                    case "ban":
-                        // Prefer player name if online; otherwise use UUID (some commands accept UUID)
-                        String banReason = params.getOrDefault("reason", "Banned by admin");
-                        String name = null;
-                        var info = playerManager.getPlayer(uuid);
-                        if (info != null && info.getPlayer() != null) {
-                            name = info.getPlayer().getGameProfile().getName();
-                        }
-                        String target = name != null ? name : uuid.toString();
-                        server.getCommandManager().executeWithPrefix(server.getCommandSource(),
-                            String.format("ban %s %s", target, java.net.URLDecoder.decode(banReason, java.nio.charset.StandardCharsets.UTF_8)));
-                        break;
-                    case "unban":
-                        String unbanTarget = uuid.toString();
-                        var i2 = playerManager.getPlayer(uuid);
-                        if (i2 != null && i2.getPlayer() != null) {
-                            unbanTarget = i2.getPlayer().getGameProfile().getName();
+                            result.addProperty("success", runAction(op.action(), UUID.fromString(target), op.params(), actor));
+                        } catch (IllegalArgumentException e) {
+                            result.addProperty("success", false);
+                            result.addProperty("error", "invalid_uuid");
+                        } catch (Exception e) {
+                            dev.synm.SynM.LOGGER.error("Batch action {} failed for {}", op.action(), target, e);
+                            result.addProperty("success", false);
+                            result.addProperty("error", "failed");
                         }
-                        server.getCommandManager().executeWithPrefix(server.getCommandSource(),
-                            String.format("pardon %s", unbanTarget));
-                        break;
+                        results.add(result);
+                    }
                 }
-            });
-            return true;
+                playerManager.requestSnapshot();
+                JsonObject response = new JsonObject();
+                response.add("results", results);
+                return response;
+            }));
+        }
+
+        // Accepts either [{...}] or {"operations": [{...}]}; each op is {action, uuids[], params{}}
+        // Every shape is checked explicitly so malformed input is a 400, never an exception escaping the handler
+        private List<BatchOperation> parseBatch(String body) {
+            JsonElement root = JsonParser.parseString(body);
+            JsonElement opsElement = root;
+            if (root.isJsonObject()) opsElement = root.getAsJsonObject().get("operations");
+            if (opsElement == null || !opsElement.isJsonArray()) throw new IllegalArgumentException("Missing operations");
+            List<BatchOperation> operations = new ArrayList<>();
+            for (JsonElement el : opsElement.getAsJsonArray()) {
+                if (!el.isJsonObject()) throw new IllegalArgumentException("Operation is not an object");
+                JsonObject o = el.getAsJsonObject();
+                String action = string(o.get("action"));
+                if (action == null || action.isEmpty()) throw new IllegalArgumentException("Operation without action");
+                List<String> uuids = new ArrayList<>();
+                JsonElement uuidsElement = o.get("uuids");
+                if (uuidsElement != null && !uuidsElement.isJsonNull()) {
+                    if (!uuidsElement.isJsonArray()) throw new IllegalArgumentException("uuids is not an array");
+                    for (JsonElement u : uuidsElement.getAsJsonArray()) {
+                        String uuid = string(u);
+                        if (uuid == null) throw new IllegalArgumentException("uuid is not a string");
+                        uuids.add(uuid);
+                    }
+                }
+                if (uuids.isEmpty()) throw new IllegalArgumentException("Operation without uuids");
+                Map<String, String> params = new HashMap<>();
+                JsonElement paramsElement = o.get("params");
+                if (paramsElement != null && !paramsElement.isJsonNull()) {
+                    if (!paramsElement.isJsonObject()) throw new IllegalArgumentException("params is not an object");
+                    for (Map.Entry<String, JsonElement> p : paramsElement.getAsJsonObject().entrySet()) {
+                        JsonElement v = p.getValue();
+                        if (v.isJsonNull()) continue;
+                        params.put(p.getKey(), v.isJsonPrimitive() ? v.getAsString() : v.toString());
+                    }
+                }
+                operations.add(new BatchOperation(action, uuids, params));
+            }
+            return operations;
+        }
+
+        // String value of a JSON string primitive, or null for anything else
+        private static String string(JsonElement element) {
+            return element != null && element.isJsonPrimitive() && element.getAsJsonPrimitive().isString()
+                ? element.getAsString() : null;
+        }
+
+        // Server thread only. Returns the real outcome reported by PlayerManager and records it in the event and audit logs.
+        private boolean runAction(String action, UUID uuid, Map<String, String> params, AuditLog.Actor actor) {
+            boolean success;
+            try {
+                success = applyAction(action, uuid, params);
+            } catch (RuntimeException e) {
+                auditLog.append(actor, action, uuid, params, "error");
+                throw e;
+            }
+            auditLog.append(actor, action, uuid, params, success ? "ok" : "failed");
+            var logger = dev.synm.SynM.getPlayerLogger();
+            if (logger != null) {
+                var info = playerManager.getPlayer(uuid);
+                logger.logAdminAction(uuid, info != null ? info.getUsername() : null, action, success);
+            }
+            return success;
+        }
+
+        private boolean applyAction(String action, UUID uuid, Map<String, String> params) {
+            switch (action) {
+                case "heal":
+                    return playerManager.healPlayer(uuid);
+                case "feed":
+                    return playerManager.feedPlayer(uuid);
+                case "creative":
+                    return playerManager.setPlayerGameMode(uuid, GameMode.CREATIVE);
+                case "survival":
+                    return playerManager.setPlayerGameMode(uuid, GameMode.SURVIVAL);
+                case "adventure":
+                    return playerManager.setPlayerGameMode(uuid, GameMode.ADVENTURE);
+                case "spectator":
+                    return playerManager.setPlayerGameMode(uuid, GameMode.SPECTATOR);
+                case "setgamemode":
+                    String gameMode = params.getOrDefault("gamemode", "survival");
+                    return playerManager.setPlayerGameModeByName(uuid, gameMode);
+                case "kill":
+                    return playerManager.killPlayer(uuid);
+                case "removehunger":
+                    return playerManager.removeHunger(uuid);
+                case "clearinventory":
+                    return playerManager.clearInventory(uuid);
+                case "teleport":
+                    try {
+                        double x = Double.parseDouble(params.getOrDefault("x", "0"));
+                        double y = Double.parseDouble(params.getOrDefault("y", "64"));
+                        double z = Double.parseDouble(params.getOrDefault("z", "0"));
+                        return playerManager.teleportPlayer(uuid, x, y, z);
+                    } catch (NumberFormatException e) {
+                        dev.synm.SynM.LOGGER.error("Invalid teleport coordinates", e);
+                        return false;
+                    }
+                case "kick":
+                    String reason = params.getOrDefault("reason", "Kicked by admin");
+                    return playerManager.kickPlayer(uuid, reason);
+                case "freeze":
+                    boolean freeze = Boolean.parseBoolean(params.getOrDefault("freeze", "true"));
+                    return playerManager.freezePlayer(uuid, freeze);
+                // With "enabled" these set the state instead of flipping it, so a retry can't undo itself
+                case "godmode":
+                    return params.containsKey("enabled")
+                        ? playerManager.setGodMode(uuid, Boolean.parseBoolean(params.get("enabled")))
+                        : playerManager.toggleGodMode(uuid);
+                case "fly":
+                    return params.containsKey("enabled")
+                        ? playerManager.setFlyMode(uuid, Boolean.parseBoolean(params.get("enabled")))
+                        : playerManager.toggleFlyMode(uuid);
+                case "vanish":
+                    return params.containsKey("enabled")
+                        ? playerManager.setVanishMode(uuid, Boolean.parseBoolean(params.get("enabled")))
+                        : playerManager.toggleVanishMode(uuid);
+                case "setnote":
+                    String note = params.getOrDefault("note", "");
+                    return playerManager.setPlayerNote(uuid, note);
+                case "effect":
+                    String effect = params.getOrDefault("effect", "speed");
+                    int duration = 60;
+                    int amplifier = 0;
+                    try { duration = Integer.parseInt(params.getOrDefault("duration", "60")); } catch (Exception ignored) {}
+                    try { amplifier = Integer.parseInt(params.getOrDefault("amplifier", "0")); } catch (Exception ignored) {}
+                    return playerManager.applyEffect(uuid, effect, duration, amplifier);
+                case "cleareffects":
+                    return playerManager.clearEffects(uuid);
+                case "broadcast":
+                    String msg = params.getOrDefault("message", "");
+                    playerManager.broadcast(java.net.URLDecoder.decode(msg, java.nio.charset.StandardCharsets.UTF_8));
+                    return true;
+                case "ban":
+                    // Prefer player name if online; otherwise use UUID (some commands accept UUID)
+                    String banReason = params.getOrDefault("reason", "Banned by admin");
+                    String name = null;
+                    var info = playerManager.getPlayer(uuid);
+                    if (info != null && info.getPlayer() != null) {
+                        name = info.getPlayer().getGameProfile().getName();
+                    }
+                    String target = name != null ? name : uuid.toString();
+                    server.getCommandManager().executeWithPrefix(server.getCommandSource(),
+                        String.format("ban %s %s", target, java.net.URLDecoder.decode(banReason, java.nio.charset.StandardCharsets.UTF_8)));
+                    return true;
+                case "unban":
+                    String unbanTarget = uuid.toString();
+                    var i2 = playerManager.getPlayer(uuid);
+                    if (i2 != null && i2.getPlayer() != null) {
+                        unbanTarget = i2.getPlayer().getGameProfile().getName();
+                    }
+                    server.getCommandManager().executeWithPrefix(server.getCommandSource(),
+                        String.format("pardon %s", unbanTarget));
+                    return true;
+                default:
+                    return false;
+            }
         }
     }
 
+    private record BatchOperation(String action, List<String> uuids, Map<String, String> params) {}
+
     // Auth: status endpoint
     private class AuthStatusHandler implements HttpHandler {
         @Override
@@ -441,6 +1072,25 @@ public class WebServer {
 
     private boolean isAuthInitialized() { return authKey != null && !authKey.isEmpty(); }
 
+    // Who is calling, for the audit log. There is one shared key, so the actor is its
+    // fingerprint (never the key itself), told apart by address and user agent.
+    private AuditLog.Actor actor(HttpExchange exchange) {
+        String id = isAuthInitialized() ? "key:" + hashKey(authKey).substring(0, 8) : "anonymous";
+        String ip = exchange.getRemoteAddress() != null ? exchange.getRemoteAddress().getAddress().getHostAddress() : null;
+        String client = exchange.getRequestHeaders().getFirst("User-Agent");
+        if (client != null && client.length() > 256) client = client.substring(0, 256);
+        return new AuditLog.Actor(id, ip, client);
+    }
+
+    private static String hashKey(String key) {
+        try {
+            return bytesToHex(java.security.MessageDigest.getInstance("SHA-256")
+                .digest(key.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private boolean isAuthorized(HttpExchange exchange) {
         // If key not initialized yet, allow API access so UI can initialize
         if (!isAuthInitialized()) return true;
@@ -461,48 +1111,114 @@ public class WebServer {
         return false;
     }
 
+    // Wire formats for player responses, picked from the client's Accept header.
+    // The compact JSON and CBOR forms drop derived fields such as item names.
+    private enum Encoding {
+        JSON("application/json"),
+        COMPACT_JSON("application/vnd.synm.compact+json"),
+        CBOR("application/cbor");
+
+        final String contentType;
+
+        Encoding(String contentType) {
+            this.contentType = contentType;
+        }
+    }
+
+    private static Encoding negotiate(HttpExchange exchange) {
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        if (accept == null) return Encoding.JSON;
+        if (accept.contains(Encoding.CBOR.contentType)) return Encoding.CBOR;
+        return accept.contains(Encoding.COMPACT_JSON.contentType) ? Encoding.COMPACT_JSON : Encoding.JSON;
+    }
+
+    // Streams a document into the cache buffer without building a JsonObject tree or a String
+    private static ResponseCache.Renderer render(Encoding encoding, RecordBody body) {
+        return out -> {
+            if (encoding == Encoding.CBOR) {
+                body.write(new CborRecordWriter(out));
+                return;
+            }
+            JsonWriter writer = new JsonWriter(new java.io.BufferedWriter(
+                new java.io.OutputStreamWriter(out, java.nio.charset.StandardCharsets.UTF_8), 8192));
+            body.write(new JsonRecordWriter(writer, encoding == Encoding.COMPACT_JSON));
+            writer.flush();
+        };
+    }
+
+    @FunctionalInterface
+    private interface RecordBody {
+        void write(RecordWriter out) throws IOException;
+    }
+
+    // GET /api/schema: field ids used as map keys by the CBOR encoding
+    private byte[] renderSchema() {
+        JsonObject schema = new JsonObject();
+        schema.addProperty("version", PlayerField.SCHEMA_VERSION);
+        schema.addProperty("mediaType", Encoding.CBOR.contentType);
+        JsonArray fields = new JsonArray();
+        for (PlayerField field : PlayerField.values()) {
+            JsonObject f = new JsonObject();
+            f.addProperty("id", field.id());
+            f.addProperty("name", field.jsonName());
+            f.addProperty("type", field.type());
+            f.addProperty("derived", field.derived());
+            fields.add(f);
+        }
+        schema.add("fields", fields);
+        return schema.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    // Send a cached body, or 304 if the client already holds this version
+    private void sendCached(HttpExchange exchange, Encoding encoding, ResponseCache.Entry entry) throws IOException {
+        exchange.getResponseHeaders().set("ETag", entry.etag());
+        exchange.getResponseHeaders().set("Vary", "Accept");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        if (ResponseCache.matches(exchange.getRequestHeaders().getFirst("If-None-Match"), entry.etag())) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", encoding.contentType);
+        exchange.sendResponseHeaders(200, entry.body().length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(entry.body());
+        }
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonObject json) throws IOException {
+        byte[] body = json.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) { os.write(body); }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String error) throws IOException {
+        byte[] json = ("{\"error\":\"" + error + "\"}").getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, json.length);
+        try (OutputStream os = exchange.getResponseBody()) { os.write(json); }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) return params;
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) continue;
+            String[] kv = pair.split("=", 2);
+            String key = java.net.URLDecoder.decode(kv[0], java.nio.charset.StandardCharsets.UTF_8);
+            String value = kv.length == 2 ? java.net.URLDecoder.decode(kv[1], java.nio.charset.StandardCharsets.UTF_8) : "";
+            params.put(key, value);
+        }
+        return params;
+    }
+
     private void sendUnauthorized(HttpExchange exchange) throws IOException {
         String json = "{\"error\":\"unauthorized\"}";
         exchange.getResponseHeaders().set("Content-Type", "application/json");
         exchange.sendResponseHeaders(401, json.getBytes("UTF-8").length);
         try (OutputStream os = exchange.getResponseBody()) { os.write(json.getBytes("UTF-8")); }
     }
-    
-    private String getMainPage() {
-        try (InputStream is = getClass().getResourceAsStream("/index.html")) {
-            if (is != null) {
-                return new String(is.readAllBytes(), "UTF-8");
-            }
-        } catch (IOException e) {
-            dev.synm.SynM.LOGGER.error("Failed to load index.html", e);
-        }
-        
-        // Fallback basic HTML
-        return "<!DOCTYPE html><html><head><title>SynM</title></head><body>" +
-               "<h1>SynM Server Management Portal</h1>" +
-               "<p>Error loading interface. Check server logs.</p>" +
-               "</body></html>";
-    }
-
-    private byte[] getWebAsset(String path) {
-    // Single-file build outputs to resources root (index.html)
-    String normalized = path.startsWith("/") ? path : "/" + path;
-        try (InputStream is = getClass().getResourceAsStream(normalized)) {
-            if (is != null) return is.readAllBytes();
-        } catch (IOException ignored) {}
-        return null;
-    }
-
-    private String contentTypeFor(String path) {
-        String p = path.toLowerCase();
-        if (p.endsWith(".html")) return "text/html; charset=UTF-8";
-        if (p.endsWith(".js")) return "application/javascript";
-        if (p.endsWith(".css")) return "text/css";
-        if (p.endsWith(".json")) return "application/json";
-        if (p.endsWith(".svg")) return "image/svg+xml";
-        if (p.endsWith(".png")) return "image/png";
-        if (p.endsWith(".jpg") || p.endsWith(".jpeg")) return "image/jpeg";
-        if (p.endsWith(".ico")) return "image/x-icon";
-        return "application/octet-stream";
-    }
 }
@@ -0,0 +1,130 @@
+package dev.synm.player;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RosterVersionTest {
+    private static final UUID PLAYER = UUID.fromString("6a3c1f0e-0d1b-4c55-9a59-2f1e8d7b4c21");
+
+    @Test
+    void unchangedOnlinePlayerKeepsVersionAndEtag() throws Exception {
+        PlayerInfo info = onlinePlayer();
+        PlayerManager.Roster empty = new PlayerManager.Roster(0L, 0L, Map.of(), Map.of());
+
+        PlayerManager.Roster first = PlayerManager.nextRoster(empty, Map.of(PLAYER, snapshot(info)), empty.offline(), 1_000L);
+        assertEquals(1L, first.version());
+
+        // A later publish of the same player, as the next tick would do
+        PlayerManager.Roster second = PlayerManager.nextRoster(first, Map.of(PLAYER, snapshot(info)), first.offline(), 2_000L);
+        assertSame(first, second);
+        assertEquals(etag(first), etag(second));
+    }
+
+    @Test
+    void visibleChangeBumpsVersion() throws Exception {
+        PlayerInfo info = onlinePlayer();
+        PlayerManager.Roster empty = new PlayerManager.Roster(0L, 0L, Map.of(), Map.of());
+        PlayerManager.Roster first = PlayerManager.nextRoster(empty, Map.of(PLAYER, snapshot(info)), empty.offline(), 1_000L);
+
+        info.addPlayTime(60_000L);
+        PlayerManager.Roster second = PlayerManager.nextRoster(first, Map.of(PLAYER, snapshot(info)), first.offline(), 2_000L);
+        assertNotSame(first, second);
+        assertEquals(2L, second.version());
+    }
+
+    @Test
+    void leaveStampIsVisible() throws Exception {
+        PlayerInfo info = onlinePlayer();
+        PlayerManager.Roster empty = new PlayerManager.Roster(0L, 0L, Map.of(), Map.of());
+        PlayerManager.Roster first = PlayerManager.nextRoster(empty, Map.of(PLAYER, snapshot(info)), empty.offline(), 1_000L);
+
+        info.markSeen(5_000L);
+        PlayerManager.Roster second = PlayerManager.nextRoster(first, Map.of(PLAYER, snapshot(info)), first.offline(), 5_000L);
+        assertEquals(5_000L, second.online().get(PLAYER).getLastSeen());
+        assertNotEquals(etag(first), etag(second));
+    }
+
+    // Summary record as the offline roster stores it, brought online
+    private static PlayerInfo onlinePlayer() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(PLAYER.getMostSignificantBits());
+        out.writeLong(PLAYER.getLeastSignificantBits());
+        out.writeUTF("Steve");
+        out.writeLong(1_000L);      // lastSeen
+        out.writeLong(1_000L);      // firstJoined
+        out.writeLong(120_000L);    // totalPlayTime
+        out.writeDouble(20.0);
+        out.writeDouble(20.0);
+        out.writeInt(20);
+        out.writeFloat(5.0f);
+        out.writeByte(-1);          // no game mode
+        out.writeDouble(12.5);
+        out.writeDouble(64.0);
+        out.writeDouble(-3.25);
+        out.writeUTF("minecraft:overworld");
+        out.writeInt(7);
+        out.writeFloat(0.5f);
+        PlayerInfo info = PlayerInfo.readSummary(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        info.setOnline(true);
+        return info;
+    }
+
+    private static PlayerSnapshot snapshot(PlayerInfo info) {
+        return new PlayerSnapshot(info, null, false, false, false, false, false, List.of(), 0, null);
+    }
+
+    // Same digest the web layer's response cache uses as the ETag
+    private static String etag(PlayerManager.Roster roster) throws IOException, NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(render(roster.online()));
+        return HexFormat.of().formatHex(digest, 0, 16);
+    }
+
+    private static byte[] render(Map<UUID, PlayerSnapshot> online) throws IOException {
+        TextWriter out = new TextWriter();
+        out.beginArray();
+        for (PlayerSnapshot snapshot : online.values()) snapshot.write(out);
+        out.endArray();
+        return out.text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Token dump; enough to tell whether two renders differ
+    private static final class TextWriter implements RecordWriter {
+        final StringBuilder text = new StringBuilder();
+
+        private RecordWriter token(Object value) {
+            text.append(value).append(' ');
+            return this;
+        }
+
+        @Override public RecordWriter beginObject() { return token('{'); }
+        @Override public RecordWriter endObject() { return token('}'); }
+        @Override public RecordWriter beginArray() { return token('['); }
+        @Override public RecordWriter endArray() { return token(']'); }
+        @Override public RecordWriter name(PlayerField field) { return token(field + ":"); }
+        @Override public RecordWriter value(String value) { return token(value); }
+        @Override public RecordWriter value(long value) { return token(value); }
+        @Override public RecordWriter value(double value) { return token(value); }
+        @Override public RecordWriter value(float value) { return token(value); }
+        @Override public RecordWriter value(boolean value) { return token(value); }
+        @Override public RecordWriter value(UUID value) { return token(value); }
+        @Override public RecordWriter nullValue() { return token("null"); }
+    }
+}